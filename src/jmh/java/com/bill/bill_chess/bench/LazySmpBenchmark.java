@@ -0,0 +1,81 @@
+package com.bill.bill_chess.bench;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.search.LazySmp;
+import com.bill.bill_chess.core.search.SearchResult;
+import com.bill.bill_chess.core.search.TranspositionTable;
+
+/**
+ * Escala do Lazy SMP de 1 a N threads: tempo até a profundidade fixa (timeToDepth, ms/op)
+ * e nós/s (nodesPerSecond:nodes). {@code ./mvnw -Pjmh test-compile exec:exec -Djmh.args=LazySmpBenchmark}
+ * A TT é zerada antes de cada busca para medir sempre a partir do frio.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LazySmpBenchmark {
+
+    @Param({
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    })
+    public String fen;
+
+    @Param({ "6" })
+    public int depth;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private TranspositionTable tt;
+    private LazySmp smp;
+
+    /** Nós somados de todas as threads; no modo throughput sai como nós/s. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tt = new TranspositionTable(64);
+        smp = new LazySmp(tt, threads - 1);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        tt.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        smp.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int timeToDepth() {
+        return search().bestMove();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int nodesPerSecond(Nodes counter) {
+        SearchResult result = search();
+        counter.nodes += result.nodes();
+        return result.bestMove();
+    }
+
+    private SearchResult search() {
+        return smp.search(BitboardPosition.fromFen(fen), depth, Duration.ofMinutes(5), threads);
+    }
+}
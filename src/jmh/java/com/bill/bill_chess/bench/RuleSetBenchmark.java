@@ -0,0 +1,66 @@
+package com.bill.bill_chess.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.bill.bill_chess.core.RuleSet;
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.domain.enums.Color;
+import com.bill.bill_chess.domain.model.Board;
+
+/**
+ * Baseline da geração de lances. Rodar com:
+ * {@code ./mvnw -Pjmh test-compile exec:exec}
+ * (o perfil já liga {@code -prof gc}, que reporta gc.alloc.rate.norm = bytes por operação).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleSetBenchmark {
+
+    @Param({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    })
+    public String fen;
+
+    @Param({ "3" })
+    public int depth;
+
+    private BitboardPosition position;
+    private Board board;
+    private Color side;
+
+    /** Nós visitados; o JMH reporta como taxa (nós/s) ao lado do throughput. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setup() {
+        position = BitboardPosition.fromFen(fen);
+        board = new Board(position.copy(), List.of());
+        side = Color.values()[position.sideToMove()];
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = RuleSet.perft(position, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public void generateLegal(Blackhole bh) {
+        bh.consume(RuleSet.generateLegal(board, side,
+                BitboardPosition.castleRights(position.castling()), null));
+    }
+}
@@ -0,0 +1,20 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.active-games")
+@Data
+public class ActiveGameStoreProperties {
+    /** Desligado: toda leitura e todo lance vão direto ao Mongo. */
+    private boolean enabled = true;
+    /** Partida sem leitura nem lance nesse prazo sai da memória. */
+    private Duration idleTtl = Duration.ofMinutes(30);
+    private long maxGames = 10_000;
+    /** Limite de durabilidade: um lance fica no máximo isso só em memória. */
+    private Duration flushInterval = Duration.ofMillis(500);
+}
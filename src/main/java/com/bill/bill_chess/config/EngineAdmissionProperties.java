@@ -0,0 +1,19 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.engine.admission")
+@Data
+public class EngineAdmissionProperties {
+    /** Buscas rodando ao mesmo tempo; acompanhe o tamanho do pool do Stockfish. */
+    private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+    /** Buscas esperando vaga; com a fila cheia o pedido leva 503 na hora. */
+    private int queueDepth = 100;
+    /** Estimativa inicial do tempo de uma busca, até haver medições. */
+    private Duration initialServiceTime = Duration.ofSeconds(1);
+}
@@ -0,0 +1,15 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.eval-store")
+@Data
+public class EvalStoreProperties {
+    private boolean enabled = true;
+    private String path = "data/eval-store.bin";
+    /** Registros de 16 bytes; o arquivo é mapeado com esse tamanho desde o início. */
+    private int maxRecords = 262_144;
+}
@@ -0,0 +1,13 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.moves")
+@Data
+public class GameExecutorProperties {
+    /** Filas seriais; uma partida sempre cai na mesma, partidas diferentes andam em paralelo. */
+    private int shards = Runtime.getRuntime().availableProcessors();
+}
@@ -0,0 +1,19 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.storage")
+@Data
+public class GameStorageProperties {
+    /**
+     * Grava o cabeçalho da partida compactado (GameCodec); documentos antigos em texto são
+     * regravados compactados na primeira leitura. Snapshots são sempre compactados e só
+     * guardam a posição.
+     */
+    private boolean binary = false;
+    /** Snapshot da posição a cada N plies: montar a partida refaz no máximo N - 1 lances. */
+    private int snapshotEvery = 20;
+}
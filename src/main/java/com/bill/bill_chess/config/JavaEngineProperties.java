@@ -0,0 +1,45 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.engine.java")
+@Data
+public class JavaEngineProperties {
+    /** Profundidades até este valor vão para o motor Java em vez do Stockfish. */
+    private int maxDepth = 5;
+    /** Tempo máximo de busca por lance; fica abaixo de BOT_TIMEOUT_SECONDS. */
+    private Duration moveTime = Duration.ofSeconds(3);
+    private Hash hash = new Hash();
+    private Smp smp = new Smp();
+
+    @Data
+    public static class Hash {
+        /** Tabela de transposição fora do heap, arredondada para potência de 2. */
+        private int sizeMb = 64;
+    }
+
+    @Data
+    public static class Smp {
+        /** Threads por busca quando nenhuma faixa de profundidade se aplica. */
+        private int threads = 1;
+        /** Teto de threads por busca (a chamadora + helpers). */
+        private int maxThreads = Runtime.getRuntime().availableProcessors();
+        /** Profundidade mínima -> threads, ex.: {@code threads-from-depth[5]=4}. */
+        private Map<Integer, Integer> threadsFromDepth = new TreeMap<>();
+
+        public int threadsFor(int depth) {
+            int result = threads;
+            for (Map.Entry<Integer, Integer> entry : new TreeMap<>(threadsFromDepth).entrySet())
+                if (depth >= entry.getKey())
+                    result = entry.getValue();
+            return Math.clamp(result, 1, maxThreads);
+        }
+    }
+}
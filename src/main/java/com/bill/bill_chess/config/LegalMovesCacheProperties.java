@@ -0,0 +1,13 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.legal-moves.cache")
+@Data
+public class LegalMovesCacheProperties {
+    // lances legais de uma posição nunca mudam: sem TTL, só limite de tamanho
+    private long maxSize = 50_000;
+}
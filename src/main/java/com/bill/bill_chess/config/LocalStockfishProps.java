@@ -3,8 +3,16 @@ package com.bill.bill_chess.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @Data
 @ConfigurationProperties(prefix = "stockfish.local")
 public class LocalStockfishProps {
     private String exe = "stockfish";
-}
\ No newline at end of file
+    /** Processos Stockfish no pool, um por busca simultânea. */
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    /** Pedidos esperando worker livre; acima disso falha na hora. */
+    private int maxWaiting = 64;
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+    private Duration timeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,18 @@
+package com.bill.bill_chess.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chess.ponder")
+@Data
+public class PonderProperties {
+    private boolean enabled = true;
+    /** Resultado pré-calculado não buscado nesse prazo é descartado (e a busca cancelada). */
+    private Duration ttl = Duration.ofMinutes(2);
+    /** Partidas com ponder simultâneo; acima disso as mais antigas são canceladas. */
+    private long maxGames = 1_000;
+}
@@ -14,10 +14,22 @@ public class StockfishProperties {
     private String path;
     private Duration timeout = Duration.ofSeconds(4);
     private Cache cache = new Cache();
+    private Hedge hedge = new Hedge();
 
     @Data
     public static class Cache {
         private Duration ttl = Duration.ofMinutes(10);
         private long maxSize = 1_000;
     }
+
+    /** Chamada remota com hedge no pool local e disjuntor. */
+    @Data
+    public static class Hedge {
+        private boolean enabled = false;
+        /** Atraso do hedge até haver amostras suficientes para o p95. */
+        private Duration initialDelay = Duration.ofSeconds(1);
+        private Duration minDelay = Duration.ofMillis(100);
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
 }
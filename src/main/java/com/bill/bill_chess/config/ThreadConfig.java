@@ -1,20 +0,0 @@
-package com.bill.bill_chess.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-@Configuration
-public class ThreadConfig {
-
-    @Bean(name = "stockfishExecutor")
-    public ExecutorService stockfishExecutor() {
-        return Executors.newCachedThreadPool(r -> {
-            Thread t = new Thread(r, "stockfish-bot");
-            t.setDaemon(true);
-            return t;
-        });
-    }
-}
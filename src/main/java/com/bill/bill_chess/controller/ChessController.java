@@ -3,7 +3,11 @@ package com.bill.bill_chess.controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.bill.bill_chess.dto.AnalysisInfo;
+import com.bill.bill_chess.dto.CacheStatsDto;
+import com.bill.bill_chess.dto.CoalescingStatsDto;
 import com.bill.bill_chess.dto.GameStateDto;
+import com.bill.bill_chess.dto.LegalMoveMapDto;
 import com.bill.bill_chess.dto.LegalMovesDto;
 import com.bill.bill_chess.dto.MoveDto;
 import com.bill.bill_chess.service.ChessService;
@@ -12,9 +16,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -49,6 +56,59 @@ public class ChessController {
         return chessService.getLegalMoves(id, square);
     }
 
+    @GetMapping("/{id}/legal-moves/all")
+    @Operation(summary = "get all legal moves as a map from square to destinations")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Legal moves retrieved successfully"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "404", description = "Game not found")
+    })
+    @ResponseStatus(HttpStatus.OK)
+    public LegalMoveMapDto allLegalMoves(@PathVariable String id) {
+        return chessService.getAllLegalMoves(id);
+    }
+
+    @GetMapping("/stats/legal-moves-cache")
+    @Operation(summary = "get legal moves cache hit/miss stats")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache stats retrieved successfully")
+    })
+    @ResponseStatus(HttpStatus.OK)
+    public CacheStatsDto legalMovesCacheStats() {
+        return chessService.getLegalMovesCacheStats();
+    }
+
+    @GetMapping(value = "/{id}/analysis", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "stream engine analysis (depth, score, pv) as server-sent events")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Analysis stream started; close it to stop the search"),
+            @ApiResponse(responseCode = "404", description = "Game not found")
+    })
+    public Flux<AnalysisInfo> analysis(@PathVariable String id,
+            @RequestParam(defaultValue = "20") int depth) {
+        return chessService.analyze(id, depth);
+    }
+
+    @GetMapping("/stats/engine-cache")
+    @Operation(summary = "get engine best-move cache hit/miss stats")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache stats retrieved successfully")
+    })
+    @ResponseStatus(HttpStatus.OK)
+    public CacheStatsDto engineCacheStats() {
+        return chessService.getEngineCacheStats();
+    }
+
+    @GetMapping("/stats/bot-move-coalescing")
+    @Operation(summary = "get how many bot-move requests shared an in-flight search")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Coalescing stats retrieved successfully")
+    })
+    @ResponseStatus(HttpStatus.OK)
+    public CoalescingStatsDto botMoveCoalescingStats() {
+        return chessService.getBotMoveCoalescingStats();
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "get game state")
     @ApiResponses(value = {
@@ -61,6 +121,18 @@ public class ChessController {
         return chessService.getGame(id);
     }
 
+    @GetMapping("/{id}/plies/{ply}")
+    @Operation(summary = "get game state after a given ply, rebuilt from the move log")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Game state retrieved successfully"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "404", description = "Game or ply not found")
+    })
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<GameStateDto> getGameAt(@PathVariable String id, @PathVariable int ply) {
+        return chessService.getGameAt(id, ply);
+    }
+
     @PostMapping("/{id}/move")
     @Operation(summary = "make a move")
     @ApiResponses(value = {
@@ -70,7 +142,7 @@ public class ChessController {
             @ApiResponse(responseCode = "404", description = "Game not found")
     })
     @ResponseStatus(HttpStatus.OK)
-    public GameStateDto move(@PathVariable String id, @RequestBody MoveDto move) {
+    public Mono<GameStateDto> move(@PathVariable String id, @RequestBody MoveDto move) {
         return chessService.makeHumanMove(id, move);
     }
 
@@ -83,7 +155,7 @@ public class ChessController {
             @ApiResponse(responseCode = "404", description = "Game not found")
     })
     @ResponseStatus(HttpStatus.OK)
-    public GameStateDto botMove(@PathVariable String id,
+    public Mono<GameStateDto> botMove(@PathVariable String id,
             @RequestParam(defaultValue = "10") int depth) {
         return chessService.makeBotMove(id, depth);
     }
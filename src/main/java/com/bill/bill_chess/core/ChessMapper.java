@@ -29,7 +29,8 @@ public class ChessMapper {
                 game.isInCheck(),
                 game.getStatus(),
                 game.getCreatedAt(),
-                game.getUpdatedAt());
+                game.getUpdatedAt(),
+                game.getVersion());
     }
 
     public ChessEntity toEntity(
@@ -44,12 +45,15 @@ public class ChessMapper {
             boolean inCheck,
             GameStatus status,
             Instant createdAt,
-            Instant updatedAt) {
+            Instant updatedAt,
+            Long version) {
 
+        board.setState(active, rights, enPassant);
         StringBuilder boardFen = getBoardFen(board);
         List<String> listMoves = board.history().stream()
                 .map(Move::toUci).toList();
-        String setRights = rights.stream().map(CastleRight::getFenSymbol).collect(Collectors.joining());
+        String setRights = rights.isEmpty() ? "-"
+                : rights.stream().sorted().map(CastleRight::getFenSymbol).collect(Collectors.joining());
 
         return new ChessEntity(
                 id,
@@ -60,11 +64,15 @@ public class ChessMapper {
                 enPassant == null ? "-" : enPassant.toNotation(),
                 halfMove,
                 fullMove,
+                board.zobristKey(),
                 inCheck,
                 status.toString().toUpperCase(),
                 listMoves,
+                null,
+                null,
                 createdAt,
-                updatedAt);
+                updatedAt,
+                version);
     }
 
     public ChessGame toDomain(ChessEntity entity) {
@@ -82,9 +90,11 @@ public class ChessMapper {
         System.out.println(entity.id());
         System.out.println(entity.toFen());
         Position enPassant = Objects.equals(entity.enPassantSquare(), "-") ? null : Position.fromNotation(entity.enPassantSquare());
+        Board board = Board.fromFen(entity.fenBoard(), moves);
+        board.setState(color, rights, enPassant);
         return ChessGame.builder()
                 .id(entity.id())
-                .board(Board.fromFen(entity.fenBoard(), moves))
+                .board(board)
                 .activeColor(color)
                 .playerBotColor(Objects.equals(entity.playerBotColor(), "w") ? Color.WHITE : Color.BLACK)
                 .castleRights(rights)
@@ -93,10 +103,11 @@ public class ChessMapper {
                 .fullMoveNumber(entity.fullMoveNumber())
                 .createdAt(entity.createdAt())
                 .updatedAt(entity.updatedAt())
+                .version(entity.version())
                 .build();
     }
 
-    public GameStateDto toGameStateDto(ChessEntity entity) {
+    public GameStateDto toGameStateDto(ChessEntity entity, Map<String, List<String>> legalMoves) {
         return new GameStateDto(
                 entity.id(),
                 entity.toFen(),
@@ -104,7 +115,8 @@ public class ChessMapper {
                 entity.status(),
                 entity.inCheck(),
                 entity.moves().isEmpty()?"-":entity.moves().getLast(),
-                entity.activeColor().equals(entity.playerBotColor()));
+                entity.activeColor().equals(entity.playerBotColor()),
+                legalMoves);
     }
 
     private StringBuilder getBoardFen(Board board) {
@@ -6,7 +6,10 @@ public final class GameConstants {
 
     public static final int BOT_TIMEOUT_SECONDS = 6;
     public static final int DEFAULT_DEPTH = 10;
+    public static final int MAX_ANALYSIS_DEPTH = 30;
     public static final String GAME_NOT_FOUND_MSG = "Game or Board not found";
     public static final String NOT_YOUR_TURN_MSG = "It is not your turn";
     public static final String NOT_BOT_TURN_MSG = "It is not the bot's turn";
+    public static final String PLY_NOT_FOUND_MSG = "Game or ply not found";
+    public static final String CONCURRENT_MOVE_MSG = "The game changed while the move was being applied";
 }
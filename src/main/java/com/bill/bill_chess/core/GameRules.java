@@ -0,0 +1,198 @@
+package com.bill.bill_chess.core;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.Bitboards;
+import com.bill.bill_chess.core.bitboard.PackedMove;
+import com.bill.bill_chess.domain.enums.CastleRight;
+import com.bill.bill_chess.domain.enums.Color;
+import com.bill.bill_chess.domain.enums.GameStatus;
+import com.bill.bill_chess.domain.model.Board;
+import com.bill.bill_chess.domain.model.ChessGame;
+import com.bill.bill_chess.domain.model.Move;
+import com.bill.bill_chess.domain.model.Position;
+import com.bill.bill_chess.dto.MoveDto;
+import com.bill.bill_chess.exception.GameNotFoundException;
+import com.bill.bill_chess.exception.IllegalMoveException;
+import com.bill.bill_chess.exception.InvalidTurnException;
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.bill.bill_chess.persistence.GameCodec;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transição de estado de uma partida: valida e aplica um lance sobre a entidade salva
+ * ({@code ChessService}, lances novos) ou refaz lances já validados direto nos bitboards
+ * (log de lances, a partir de um snapshot).
+ */
+@Slf4j
+@Component
+public class GameRules {
+
+    private final ChessMapper chessMapper;
+
+    public GameRules(ChessMapper chessMapper) {
+        this.chessMapper = chessMapper;
+    }
+
+    /** Posição nova ainda não salva, junto do domínio que a gerou (evita outro toDomain). */
+    public record AppliedMove(ChessEntity entity, ChessGame game) {
+    }
+
+    /** Passos 2-5 da jogada: só CPU, sem acesso ao banco (também usado para refazer o log de lances). */
+    public AppliedMove applyMove(ChessEntity entity, MoveDto dto) {
+        // 2) converte para objetos de domínio
+        ChessGame game = chessMapper.toDomain(entity);
+
+        // 3) validações
+        validateTurn(dto, game.getActiveColor());
+        log.debug("Turn validation passed");
+        log.debug("UCI: {}", dto.uci());
+
+        Move m = Move.fromUci(dto.uci());
+        game.getBoard().pieceAt(m.from())
+                .orElseThrow(() -> new GameNotFoundException("Piece not found at source square"));
+        Move move = validateLegality(game.getBoard(), m, game.getActiveColor(), game.getCastleRights(),
+                game.getEnPassant());
+        log.debug("Legality validation passed");
+
+        // 4) executa o lance
+        game.getBoard().doMove(move);
+        game.setCastleRights(updateCastlingRights(game.getCastleRights(), move));
+        game.setEnPassant(updateEnPassant(game.getBoard(), move));
+        game.setActiveColor(game.getActiveColor().opposite());
+        if (move.pieceMoved().isPawn()) {
+            game.setHalfMoveClock(0);
+        } else {
+            int half = move.captured().isPresent() ? 0 : entity.halfMoveClock() + 1;
+            game.setHalfMoveClock(half);
+        }
+        int full = game.getActiveColor().isWhite() ? entity.fullMoveNumber() + 1 : entity.fullMoveNumber();
+        game.setFullMoveNumber(full);
+        // 5) status final; xeque calculado como no replay do log, não copiado do estado anterior
+        GameStatus status = RuleSet.classify(game.getBoard(), game.getActiveColor(), game.getCastleRights(),
+                game.getEnPassant());
+        game.setStatus(status);
+        game.setInCheck(RuleSet.isInCheck(game.getBoard(), game.getActiveColor()));
+        game.setVersion(entity.version() == null ? 1 : entity.version() + 1);
+
+        return new AppliedMove(chessMapper.toEntity(game), game);
+    }
+
+    /**
+     * Refaz lances do log (16 bits, ver {@link GameCodec}) sobre {@code start}, que pode estar
+     * compactada. Eles foram validados quando gravados: só {@code doMove}, e a entidade é
+     * montada uma vez no fim. {@code updatedAt} é a hora do último lance.
+     */
+    public ChessEntity replay(ChessEntity start, int[] moves, Instant updatedAt) {
+        BitboardPosition position = GameCodec.position(start);
+        List<String> history = GameCodec.moves(start);
+        int halfMove = start.halfMoveClock();
+        int fullMove = start.fullMoveNumber();
+        for (int move : moves) {
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            boolean pawn = BitboardPosition.typeOf(position.pieceCodeAt(from)) == BitboardPosition.PAWN;
+            halfMove = pawn || position.pieceCodeAt(to) != BitboardPosition.NO_PIECE ? 0 : halfMove + 1;
+            if (position.sideToMove() == BitboardPosition.BLACK)
+                fullMove++;
+            position.doMove(move);
+            history.add(PackedMove.toUci(move));
+        }
+
+        int side = position.sideToMove();
+        int enPassant = position.enPassant();
+        String rights = BitboardPosition.castleRights(position.castling()).stream().sorted()
+                .map(CastleRight::getFenSymbol).collect(Collectors.joining());
+        long version = (start.version() == null ? 0 : start.version()) + moves.length;
+        return new ChessEntity(start.id(), GameCodec.fenBoard(position), side == BitboardPosition.WHITE ? "w" : "b",
+                start.playerBotColor(), rights.isEmpty() ? "-" : rights,
+                enPassant == BitboardPosition.NO_SQUARE ? "-" : Bitboards.position(enPassant).toNotation(),
+                halfMove, fullMove, position.key(), RuleSet.isInCheck(position, side),
+                RuleSet.classify(position).name(), history, null, null, start.createdAt(), updatedAt, version);
+    }
+
+    private void validateTurn(MoveDto dto, Color active) {
+        if (!dto.color().equalsIgnoreCase(active.fen()))
+            throw new InvalidTurnException(GameConstants.NOT_YOUR_TURN_MSG);
+    }
+
+    /**
+     * Devolve o lance legal gerado para a casa de origem (com captura, roque, en passant
+     * e promoção preenchidos). Sem peça de promoção no UCI, promove a dama.
+     */
+    private Move validateLegality(Board board, Move move, Color active,
+            Set<CastleRight> rights, Position enPassant) {
+        Optional<Move> legal = RuleSet.generateLegalInPosition(board, active, rights, enPassant, move.from())
+                .stream()
+                .filter(m -> m.equals(move))
+                .filter(m -> move.promotion().isEmpty()
+                        || m.promotion().map(p -> p.type() == move.promotion().get().type()).orElse(false))
+                .findFirst();
+        log.debug("Checked legality: {} move={}", legal.isPresent(), move.toUci());
+        return legal.orElseThrow(() -> new IllegalMoveException("Illegal move: " + move.toUci()));
+    }
+
+    /* ---------- Atualiza direitos de roque ---------- */
+    private Set<CastleRight> updateCastlingRights(Set<CastleRight> current, Move move) {
+        // rei move → perde tudo daquela cor
+        if (move.pieceMoved().isKing()) {
+            current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_KINGSIDE
+                    : CastleRight.BLACK_KINGSIDE);
+            current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_QUEENSIDE
+                    : CastleRight.BLACK_QUEENSIDE);
+            return current;
+        }
+        // torre move → perde só o lado correspondente
+        if (move.pieceMoved().isRook()) {
+            Position from = move.from();
+            int rank = from.rank();
+            Color cor = move.pieceMoved().color();
+            if (from.file() == 7 && rank == (cor.isWhite() ? 1 : 8)) {
+                current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_KINGSIDE
+                        : CastleRight.BLACK_KINGSIDE);
+            }
+            if (from.file() == 0 && rank == (cor.isWhite() ? 1 : 8)) {
+                current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_QUEENSIDE
+                        : CastleRight.BLACK_QUEENSIDE);
+            }
+            return current;
+        }
+        // captura de torre no canto → também perde o lado
+        if (move.captured().isPresent() && move.captured().get().isRook()) {
+            Position to = move.to();
+            int rank = to.rank();
+            Color cor = move.captured().get().color();
+            if (to.file() == 7 && rank == (cor.isWhite() ? 1 : 8)) {
+                current.remove(cor.isWhite() ? CastleRight.WHITE_KINGSIDE
+                        : CastleRight.BLACK_KINGSIDE);
+            }
+            if (to.file() == 0 && rank == (cor.isWhite() ? 1 : 8)) {
+                current.remove(cor.isWhite() ? CastleRight.WHITE_QUEENSIDE
+                        : CastleRight.BLACK_QUEENSIDE);
+            }
+        }
+        return current;
+    }
+
+    /* ---------- En-passant ---------- */
+    private Position updateEnPassant(Board board, Move move) {
+        // só peão que andou 2 casas gera EP
+        if (!move.pieceMoved().isPawn())
+            return null;
+        Position from = move.from();
+        Position to = move.to();
+        int dr = Math.abs(to.rank() - from.rank());
+        if (dr == 2) {
+            return Position.of((from.rank() + to.rank()) / 2, from.file());
+        }
+        return null;
+    }
+}
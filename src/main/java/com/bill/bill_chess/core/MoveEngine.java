@@ -1,7 +1,19 @@
 package com.bill.bill_chess.core;
 
+import java.util.List;
+
+import com.bill.bill_chess.dto.AnalysisInfo;
+
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface MoveEngine {
     Mono<String> bestMove(String fen, int depth);
+
+    /** Atualizações a cada profundidade; motores sem saída incremental emitem só o resultado final. */
+    default Flux<AnalysisInfo> analyze(String fen, int depth) {
+        return bestMove(fen, depth)
+                .map(move -> new AnalysisInfo(depth, null, null, 0, List.of(move)))
+                .flux();
+    }
 }
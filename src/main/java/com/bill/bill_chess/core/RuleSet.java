@@ -2,294 +2,338 @@ package com.bill.bill_chess.core;
 
 import java.util.*;
 
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.Bitboards;
+import com.bill.bill_chess.core.bitboard.Magics;
+import com.bill.bill_chess.core.bitboard.MoveList;
+import com.bill.bill_chess.core.bitboard.PackedMove;
 import com.bill.bill_chess.domain.model.Board;
 import com.bill.bill_chess.domain.model.Move;
 import com.bill.bill_chess.domain.model.Position;
-import com.bill.bill_chess.domain.model.Piece;
 import com.bill.bill_chess.domain.enums.GameStatus;
-import com.bill.bill_chess.domain.enums.PieceType;
 import com.bill.bill_chess.domain.enums.Color;
 import com.bill.bill_chess.domain.enums.CastleRight;
 
+import static com.bill.bill_chess.core.bitboard.BitboardPosition.*;
+
 public final class RuleSet {
 
     private RuleSet() {
     }
 
+    public static final int MAX_PLY = 128;
+
+    private static final int[] PROMOTIONS = { QUEEN, ROOK, BISHOP, KNIGHT };
+    private static final int[] PIECE_TYPES = { KNIGHT, BISHOP, ROOK, QUEEN };
+
+    // uma lista por ply e por thread: a geração não aloca nada depois do aquecimento
+    private static final ThreadLocal<MoveList[]> BUFFERS = ThreadLocal.withInitial(() -> {
+        MoveList[] lists = new MoveList[MAX_PLY + 1];
+        for (int i = 0; i < lists.length; i++)
+            lists[i] = new MoveList();
+        return lists;
+    });
+
     /* ================== API pública ================== */
     public static List<Move> generateLegal(Board board, Color colorSide, Set<CastleRight> rights, Position enPassant) {
-
-        List<Move> pseudo = new ArrayList<>(100);
-        // 1) Movimentos normais + capturas
-        for (int rank = 1; rank < 9; rank++)
-            for (int file = 0; file < 8; file++) {
-                Position position = Position.of(rank, file);
-                board.pieceAt(position).ifPresent(piece -> {
-                    if (piece.color() == colorSide) {
-                        pseudo.addAll(pseudoMoves(board, position, piece, enPassant));
-                    }
-                });
-            }
-        // 2) Roques
-        pseudo.addAll(generateCastling(board, colorSide, rights));
-        // 3) Filtra xeque
-        List<Move> legal = new ArrayList<>(pseudo.size());
-        for (Move move : pseudo) {
-            Board copyBoard = Board.copy(board);
-            copyBoard.doMove(move);
-            if (!isInCheck(copyBoard, colorSide))
-                legal.add(move);
-        }
-        return legal;
+        MoveList moves = scratch();
+        generateLegal(prepare(board, colorSide, rights, enPassant), moves);
+        return toMoves(moves);
     }
 
     public static List<Move> generateLegalInPosition(Board board, Color colorSide, Set<CastleRight> rights,
             Position enPassant, Position position) {
-
-        List<Move> pseudo = new ArrayList<>(100);
-        board.pieceAt(position).ifPresent(piece -> {
-            if (piece.color() == colorSide) {
-                pseudo.addAll(pseudoMoves(board, position, piece, enPassant));
-            }
-        });
-        // 2) Roques
-        pseudo.addAll(generateCastling(board, colorSide, rights));
-        // 3) Filtra xeque
-        List<Move> legal = new ArrayList<>(pseudo.size());
-        for (Move move : pseudo) {
-            Board copyBoard = Board.copy(board);
-            copyBoard.doMove(move);
-            if (!isInCheck(copyBoard, colorSide))
-                legal.add(move);
-        }
-        return legal;
+        MoveList moves = scratch();
+        generateLegal(prepare(board, colorSide, rights, enPassant), Bitboards.bit(Bitboards.square(position)),
+                moves);
+        return toMoves(moves);
     }
 
     public static boolean isInCheck(Board board, Color colorSide) {
-        Position kingPosition = null;
-        outer: for (int rank = 1; rank < 9; rank++)
-            for (int file = 0; file < 8; file++) {
-                Position position = Position.of(rank, file);
-                Optional<Piece> optPiece = board.pieceAt(position);
-                if (optPiece.isPresent() && optPiece.get().isKing()
-                        && optPiece.get().color() == colorSide) {
-                    kingPosition = position;
-                    break outer;
-                }
-            }
-        if (kingPosition == null)
-            return false;
-        return isSquareAttacked(board, kingPosition, colorSide.opposite());
+        return isInCheck(board.position(), colorSide.ordinal());
     }
 
     public static GameStatus classify(Board board, Color colorSide,
             Set<CastleRight> rights,
             Position enPassant) {
-        List<Move> legal = generateLegal(board, colorSide, rights, enPassant);
+        return classify(prepare(board, colorSide, rights, enPassant));
+    }
+
+    /** Situação do lado a jogar: sem lances legais é mate (em xeque) ou afogamento. */
+    public static GameStatus classify(BitboardPosition position) {
+        MoveList legal = scratch();
+        generateLegal(position, legal);
         if (legal.isEmpty()) {
-            if (isInCheck(board, colorSide))
-                return colorSide.isWhite() ? GameStatus.BLACK_WINS : GameStatus.WHITE_WINS;
+            int side = position.sideToMove();
+            if (isInCheck(position, side))
+                return side == WHITE ? GameStatus.BLACK_WINS : GameStatus.WHITE_WINS;
             return GameStatus.STALEMATE;
         }
         return GameStatus.IN_PROGRESS;
     }
 
+    /** Lances legais do lado a jogar, empacotados ({@link PackedMove}). Limpa {@code moves} antes. */
+    public static void generateLegal(BitboardPosition position, MoveList moves) {
+        generateLegal(position, ~0L, moves);
+    }
+
+    public static void generateLegal(BitboardPosition position, long fromMask, MoveList moves) {
+        moves.clear();
+        legalMoves(position, fromMask, moves);
+    }
+
+    public static boolean isInCheck(BitboardPosition position, int color) {
+        int king = position.kingSquare(color);
+        if (king == NO_SQUARE)
+            return false;
+        return isSquareAttacked(position, king, color ^ 1);
+    }
+
+    /** Conta as folhas da árvore de lances legais (perft). Usado nos testes e benchmarks. */
+    public static long perft(BitboardPosition position, int depth) {
+        return perft(position, depth, BUFFERS.get(), 0);
+    }
+
     /* ================== Implementações ================== */
-    private static List<Move> pseudoMoves(Board board, Position from, Piece piece, Position enPassant) {
-        List<Move> list = new ArrayList<>(28);
-        Color colorSide = piece.color();
-        switch (piece.type()) {
-            case PAWN -> list.addAll(pawnMoves(board, from, colorSide, enPassant));
-            case KNIGHT -> list.addAll(knightMoves(board, from, colorSide));
-            case BISHOP -> list.addAll(sliding(board, from, colorSide, bishopDirs));
-            case ROOK -> list.addAll(sliding(board, from, colorSide, rookDirs));
-            case QUEEN -> list.addAll(sliding(board, from, colorSide, queenDirs));
-            case KING -> list.addAll(kingMoves(board, from, colorSide));
+    private static long perft(BitboardPosition position, int depth, MoveList[] buffers, int ply) {
+        if (depth == 0)
+            return 1;
+        MoveList legal = buffers[ply];
+        generateLegal(position, legal);
+        if (depth == 1)
+            return legal.size();
+        long nodes = 0;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            position.doMove(move);
+            nodes += perft(position, depth - 1, buffers, ply + 1);
+            position.undoMove(move);
         }
+        return nodes;
+    }
+
+    /** Lista reservada às chamadas da API de domínio, fora das listas por ply. */
+    private static MoveList scratch() {
+        return BUFFERS.get()[MAX_PLY];
+    }
+
+    private static List<Move> toMoves(MoveList moves) {
+        List<Move> list = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++)
+            list.add(PackedMove.toMove(moves.get(i)));
         return list;
     }
 
-    private static List<Move> pawnMoves(Board board, Position from, Color colorSide, Position enPassant) {
-        List<Move> moves = new ArrayList<>(8);
-        int dir = colorSide.isWhite() ? 1 : -1;
-        int start = colorSide.isWhite() ? 2 : 7;
-        int newRank = from.rank() + dir;
-        if (Position.isValid(newRank, from.file())
-                && board.pieceAt(Position.of(newRank, from.file())).isEmpty()) {
-            addPawn(moves, from, Position.of(newRank, from.file()), colorSide, null);
-            if (from.rank() == start) {
-                int newRank2 = from.rank() + 2 * dir;
-                if (board.pieceAt(Position.of(newRank2, from.file())).isEmpty())
-                    moves.add(Move.quiet(from, Position.of(newRank2, from.file()), board.pieceAt(from).orElse(null)));
-            }
+    private static BitboardPosition prepare(Board board, Color colorSide, Set<CastleRight> rights,
+            Position enPassant) {
+        board.setState(colorSide, rights, enPassant);
+        return board.position();
+    }
+
+    /**
+     * Lances legais das peças do lado a jogar que estão em {@code fromMask}.
+     * Xeques e cravadas são calculados uma vez: cada peça só recebe destinos dentro da
+     * máscara de evasão e, se cravada, da linha rei-cravador. Nenhum lance é jogado para teste.
+     */
+    private static void legalMoves(BitboardPosition position, long fromMask, MoveList moves) {
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.occupancy(us);
+        long occupied = position.occupied();
+        int king = position.kingSquare(us);
+        if (king == NO_SQUARE) {
+            // posição sem rei (só em testes/FEN incompleta): sem xeque nem cravada
+            pieceMoves(position, fromMask, ~0L, 0L, king, moves);
+            return;
         }
-        for (int df : new int[] { -1, 1 }) {
-            int newFile = from.file() + df;
-            if (!Position.isValid(newRank, newFile))
-                continue;
-            Position to = Position.of(newRank, newFile);
-            Optional<Piece> opposingPiece = board.pieceAt(to);
-            if (opposingPiece.isPresent() && opposingPiece.get().color() != colorSide)
-                addPawn(moves, from, to, colorSide, opposingPiece.get());
-            if (to.equals(enPassant)) {
-                moves.add(Move.enPassant(from, to, board.pieceAt(enPassant).orElse(null),
-                        board.pieceAt(from).orElse(null)));
+
+        long checkers = attackersTo(position, king, them, occupied);
+        long pinned = pinned(position, king, us);
+        long checkMask = switch (Long.bitCount(checkers)) {
+            case 0 -> ~0L;
+            case 1 -> checkers | Bitboards.BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+            default -> 0L; // xeque duplo: só o rei anda
+        };
+
+        if (checkMask != 0)
+            pieceMoves(position, fromMask, checkMask, pinned, king, moves);
+
+        if ((Bitboards.bit(king) & fromMask) != 0) {
+            long withoutKing = occupied ^ Bitboards.bit(king);
+            long targets = Bitboards.KING_ATTACKS[king] & ~own;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (attackersTo(position, to, them, withoutKing) == 0)
+                    moves.add(move(position, king, to, PackedMove.NORMAL));
             }
+            if (checkers == 0)
+                generateCastling(position, moves);
         }
-        return moves;
     }
 
-    private static void addPawn(List<Move> moves, Position from, Position to, Color colorSide, Piece capture) {
-        if (to.rank() == 1 || to.rank() == 8) {
-            for (PieceType pr : new PieceType[] { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT })
-                if (capture != null) {
-                    moves.add(new Move(from, to, capture, Piece.of(colorSide, pr), false, false,
-                            Piece.of(colorSide, pr)));
-                } else {
-                    moves.add(Move.promotion(from, to, Piece.of(colorSide, pr), Piece.of(colorSide, pr)));
+    private static void pieceMoves(BitboardPosition position, long fromMask, long checkMask, long pinned, int king,
+            MoveList moves) {
+        int us = position.sideToMove();
+        long own = position.occupancy(us);
+        long occupied = position.occupied();
+
+        pawnMoves(position, position.pieces(us, PAWN) & fromMask, checkMask, pinned, king, moves);
+        for (int type : PIECE_TYPES) {
+            long pieces = position.pieces(us, type) & fromMask;
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long targets = attacks(type, from, occupied) & ~own & checkMask & pinRay(from, pinned, king);
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    moves.add(move(position, from, to, PackedMove.NORMAL));
                 }
-        } else {
-            moves.add(capture != null ? Move.capture(from, to, capture, Piece.of(colorSide, PieceType.PAWN))
-                    : Move.quiet(from, to, Piece.of(colorSide, PieceType.PAWN)));
+            }
         }
     }
 
-    private static List<Move> knightMoves(Board board, Position from, Color colorSide) {
-        int[] rankDirection = { -2, -2, -1, -1, 1, 1, 2, 2 };
-        int[] fileDirection = { -1, 1, -2, 2, -2, 2, -1, 1 };
-        return stepMoves(board, from, colorSide, rankDirection, fileDirection);
+    /** Destinos permitidos para uma peça: tudo, ou só a linha do rei se estiver cravada. */
+    private static long pinRay(int from, long pinned, int king) {
+        return (pinned & Bitboards.bit(from)) == 0 ? ~0L : Bitboards.LINE[king][from];
     }
 
-    private static List<Move> kingMoves(Board board, Position from, Color colorSide) {
-        int[] rankDirection = { -1, -1, -1, 0, 0, 1, 1, 1 };
-        int[] fileDirection = { -1, 0, 1, -1, 1, -1, 0, 1 };
-        return stepMoves(board, from, colorSide, rankDirection, fileDirection);
+    /** Peças próprias que são a única peça entre o rei e um deslizante inimigo. */
+    private static long pinned(BitboardPosition position, int king, int us) {
+        int them = us ^ 1;
+        long occupied = position.occupied();
+        long queens = position.pieces(them, QUEEN);
+        long snipers = (Magics.rookAttacks(king, 0L) & (position.pieces(them, ROOK) | queens))
+                | (Magics.bishopAttacks(king, 0L) & (position.pieces(them, BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[king][sniper] & occupied;
+            if (Long.bitCount(blockers) == 1)
+                pinned |= blockers & position.occupancy(us);
+        }
+        return pinned;
     }
 
-    private static List<Move> stepMoves(Board board, Position from, Color colorSide, int[] rankDirection,
-            int[] fileDirection) {
-        List<Move> moves = new ArrayList<>(rankDirection.length);
-        for (int i = 0; i < rankDirection.length; i++) {
-            int rankTrajectory = from.rank() + rankDirection[i];
-            int fileTrajectory = from.file() + fileDirection[i];
-            if (!Position.isValid(rankTrajectory, fileTrajectory))
-                continue;
-            Position to = Position.of(rankTrajectory, fileTrajectory);
-            Optional<Piece> opposingPiece = board.pieceAt(to);
-            if (opposingPiece.isEmpty())
-                moves.add(Move.quiet(from, to, board.pieceAt(from).orElse(null)));
-            else if (opposingPiece.get().color() != colorSide)
-                moves.add(Move.capture(from, to, opposingPiece.orElse(null), board.pieceAt(from).orElse(null)));
-        }
-        return moves;
+    private static long attackersTo(BitboardPosition position, int square, int colorOpponent, long occupied) {
+        long queens = position.pieces(colorOpponent, QUEEN);
+        return (Bitboards.PAWN_ATTACKS[colorOpponent ^ 1][square] & position.pieces(colorOpponent, PAWN))
+                | (Bitboards.KNIGHT_ATTACKS[square] & position.pieces(colorOpponent, KNIGHT))
+                | (Bitboards.KING_ATTACKS[square] & position.pieces(colorOpponent, KING))
+                | (Magics.bishopAttacks(square, occupied) & (position.pieces(colorOpponent, BISHOP) | queens))
+                | (Magics.rookAttacks(square, occupied) & (position.pieces(colorOpponent, ROOK) | queens));
     }
 
-    private static final int[][] bishopDirs = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
-    private static final int[][] rookDirs = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
-    private static final int[][] queenDirs = Arrays.copyOf(bishopDirs, 8);// Position 0-3 (Bishop)
-    static {
-        System.arraycopy(rookDirs, 0, queenDirs, 4, 4);// Position 4-7 (Rook)
+    private static long attacks(int type, int square, long occupied) {
+        return switch (type) {
+            case KNIGHT -> Bitboards.KNIGHT_ATTACKS[square];
+            case BISHOP -> Magics.bishopAttacks(square, occupied);
+            case ROOK -> Magics.rookAttacks(square, occupied);
+            case QUEEN -> Magics.queenAttacks(square, occupied);
+            case KING -> Bitboards.KING_ATTACKS[square];
+            default -> 0L;
+        };
     }
 
-    private static List<Move> sliding(Board board, Position from, Color colorSide, int[][] directions) {
-        List<Move> moves = new ArrayList<>(28);
-        for (int[] direction : directions) {
-            int rank = from.rank(), file = from.file();
-            while (true) {
-                rank += direction[0];
-                file += direction[1];
-                if (!Position.isValid(rank, file))
-                    break;
-                Position to = Position.of(rank, file);
-                Optional<Piece> opposingPiece = board.pieceAt(to);
-                if (opposingPiece.isEmpty())
-                    moves.add(Move.quiet(from, to, board.pieceAt(from).orElse(null)));
-                else {
-                    if (opposingPiece.get().color() != colorSide)
-                        moves.add(Move.capture(from, to, opposingPiece.orElse(null), board.pieceAt(from).orElse(null)));
-                    break;
-                }
+    private static void pawnMoves(BitboardPosition position, long pawns, long checkMask, long pinned, int king,
+            MoveList moves) {
+        int us = position.sideToMove();
+        boolean white = us == WHITE;
+        int forward = white ? 8 : -8;
+        long empty = ~position.occupied();
+        long enemy = position.occupancy(us ^ 1);
+
+        long single = (white ? pawns << 8 : pawns >>> 8) & empty;
+        long doubled = (white ? (single & Bitboards.RANK_3) << 8 : (single & Bitboards.RANK_6) >>> 8) & empty;
+        addPawns(position, single & checkMask, forward, pinned, king, moves);
+        addPawns(position, doubled & checkMask, 2 * forward, pinned, king, moves);
+
+        long towardA = white ? (pawns & ~Bitboards.FILE_A) << 7 : (pawns & ~Bitboards.FILE_A) >>> 9;
+        long towardH = white ? (pawns & ~Bitboards.FILE_H) << 9 : (pawns & ~Bitboards.FILE_H) >>> 7;
+        addPawns(position, towardA & enemy & checkMask, white ? 7 : -9, pinned, king, moves);
+        addPawns(position, towardH & enemy & checkMask, white ? 9 : -7, pinned, king, moves);
+
+        int ep = position.enPassant();
+        if (ep != NO_SQUARE) {
+            int victim = white ? ep - 8 : ep + 8;
+            long attackers = pawns & Bitboards.PAWN_ATTACKS[us ^ 1][ep];
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                attackers &= attackers - 1;
+                if (enPassantIsLegal(position, from, ep, victim, checkMask, king))
+                    moves.add(PackedMove.of(from, ep, PackedMove.EN_PASSANT, position.pieceCodeAt(from),
+                            position.pieceCodeAt(victim)));
             }
         }
-        return moves;
     }
 
-    private static List<Move> generateCastling(Board board, Color colorSide, Set<CastleRight> rights) {
-        List<Move> moves = new ArrayList<>(2);
-        boolean ks = colorSide == Color.WHITE ? rights.contains(CastleRight.WHITE_KINGSIDE)
-                : rights.contains(CastleRight.BLACK_KINGSIDE);
-        boolean qs = colorSide == Color.WHITE ? rights.contains(CastleRight.WHITE_QUEENSIDE)
-                : rights.contains(CastleRight.BLACK_QUEENSIDE);
-        int rank = colorSide == Color.WHITE ? 1 : 8;
-        Position king = Position.of(rank, 4);
-        if (!isInCheck(board, colorSide)) {
-            // Kingside
-            if (ks && board.pieceAt(Position.of(rank, 5)).isEmpty()
-                    && board.pieceAt(Position.of(rank, 6)).isEmpty()
-                    && !isSquareAttacked(board, Position.of(rank, 5), colorSide.opposite())
-                    && !isSquareAttacked(board, Position.of(rank, 6), colorSide.opposite())) {
-                moves.add(Move.castle(king, Position.of(rank, 6), board.pieceAt(king).orElse(null)));
-            }
-            // Queenside
-            if (qs && board.pieceAt(Position.of(rank, 3)).isEmpty()
-                    && board.pieceAt(Position.of(rank, 2)).isEmpty()
-                    && board.pieceAt(Position.of(rank, 1)).isEmpty()
-                    && !isSquareAttacked(board, Position.of(rank, 3), colorSide.opposite())
-                    && !isSquareAttacked(board, Position.of(rank, 2), colorSide.opposite())) {
-                moves.add(Move.castle(king, Position.of(rank, 2), board.pieceAt(king).orElse(null)));
-            }
-        }
-        return moves;
+    /**
+     * En passant tira duas peças da mesma fileira, então a cravada comum não basta:
+     * refaz os raios deslizantes do rei com a ocupação resultante.
+     */
+    private static boolean enPassantIsLegal(BitboardPosition position, int from, int to, int victim, long checkMask,
+            int king) {
+        if ((checkMask & (Bitboards.bit(to) | Bitboards.bit(victim))) == 0)
+            return false;
+        if (king == NO_SQUARE)
+            return true;
+        int them = position.sideToMove() ^ 1;
+        long occupied = (position.occupied() ^ Bitboards.bit(from) ^ Bitboards.bit(victim)) | Bitboards.bit(to);
+        long queens = position.pieces(them, QUEEN);
+        return (Magics.rookAttacks(king, occupied) & (position.pieces(them, ROOK) | queens)) == 0
+                && (Magics.bishopAttacks(king, occupied) & (position.pieces(them, BISHOP) | queens)) == 0;
     }
 
-    private static boolean isSquareAttacked(Board board, Position square, Color colorOpponent) {
-        // Pawn
-        int direction = colorOpponent.isWhite() ? -1 : 1;
-        for (int fileDirection : new int[] { -1, 1 }) {
-            int pseudoRank = square.rank() + direction, pseudoFile = square.file() + fileDirection;
-            if (Position.isValid(pseudoRank, pseudoFile)) {
-                Optional<Piece> piece = board.pieceAt(Position.of(pseudoRank, pseudoFile));
-                if (piece.isPresent())
-                    if (piece.get().isPawn() && piece.get().color() == colorOpponent)
-                        return true;
+    private static void addPawns(BitboardPosition position, long targets, int offset, long pinned, int king,
+            MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int from = to - offset;
+            if ((pinRay(from, pinned, king) & Bitboards.bit(to)) == 0)
+                continue;
+            if (((Bitboards.RANK_1 | Bitboards.RANK_8) & Bitboards.bit(to)) != 0) {
+                for (int promotion : PROMOTIONS)
+                    moves.add(move(position, from, to, PackedMove.PROMOTION | promotion));
+            } else {
+                moves.add(move(position, from, to, PackedMove.NORMAL));
             }
         }
-        // Knight
-        for (Move mv : knightMoves(board, square, colorOpponent)) {
-            Optional<Piece> piece = board.pieceAt(mv.to());
-            if (piece.isPresent())
-                if (piece.get().isKnight() && piece.get().color() == colorOpponent)
-                    return true;
-        }
-        // Sliding (Bishop, Rook, Queen)
-        for (int[] d : queenDirs) {
-            int pseudoRank = square.rank() + d[0], pseudoFile = square.file() + d[1];
-            while (Position.isValid(pseudoRank, pseudoFile)) {
-                Position to = Position.of(pseudoRank, pseudoFile);
-                Optional<Piece> opposingPiece = board.pieceAt(to);
-                if (opposingPiece.isPresent()) {
-                    Piece piece = opposingPiece.get();
-                    if (piece.color() == colorOpponent) {
-                        if ((piece.isBishop() || piece.isQueen())
-                                && (d[0] != 0 && d[1] != 0))
-                            return true;
-                        if ((piece.isRook() || piece.isQueen())
-                                && (d[0] == 0 || d[1] == 0))
-                            return true;
-                    }
-                    break;
-                }
-                pseudoRank += d[0];
-                pseudoFile += d[1];
-            }
+    }
+
+    private static int move(BitboardPosition position, int from, int to, int flags) {
+        return PackedMove.of(from, to, flags, position.pieceCodeAt(from), position.pieceCodeAt(to));
+    }
+
+    private static void generateCastling(BitboardPosition position, MoveList moves) {
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        boolean ks = (position.castling() & (us == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE)) != 0;
+        boolean qs = (position.castling() & (us == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE)) != 0;
+        int king = us == WHITE ? 4 : 60;
+        long occupied = position.occupied();
+        long rooks = position.pieces(us, ROOK);
+        if (position.kingSquare(us) != king)
+            return;
+        // Kingside
+        if (ks && (rooks & Bitboards.bit(king + 3)) != 0
+                && (occupied & (Bitboards.bit(king + 1) | Bitboards.bit(king + 2))) == 0
+                && attackersTo(position, king + 1, them, occupied) == 0
+                && attackersTo(position, king + 2, them, occupied) == 0) {
+            moves.add(move(position, king, king + 2, PackedMove.CASTLING));
         }
-        // King
-        for (Move move : kingMoves(board, square, colorOpponent)) {
-            Optional<Piece> piece = board.pieceAt(move.to());
-            if (piece.isPresent())
-                if (piece.get().isKing() && piece.get().color() == colorOpponent)
-                    return true;
+        // Queenside
+        if (qs && (rooks & Bitboards.bit(king - 4)) != 0
+                && (occupied & (Bitboards.bit(king - 1) | Bitboards.bit(king - 2) | Bitboards.bit(king - 3))) == 0
+                && attackersTo(position, king - 1, them, occupied) == 0
+                && attackersTo(position, king - 2, them, occupied) == 0) {
+            moves.add(move(position, king, king - 2, PackedMove.CASTLING));
         }
-        return false;
+    }
+
+    private static boolean isSquareAttacked(BitboardPosition position, int square, int colorOpponent) {
+        return attackersTo(position, square, colorOpponent, position.occupied()) != 0;
     }
 }
@@ -0,0 +1,366 @@
+package com.bill.bill_chess.core.bitboard;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.bill.bill_chess.domain.enums.CastleRight;
+import com.bill.bill_chess.domain.enums.Color;
+import com.bill.bill_chess.domain.enums.PieceType;
+import com.bill.bill_chess.domain.model.Move;
+import com.bill.bill_chess.domain.model.Piece;
+import com.bill.bill_chess.domain.model.Position;
+
+/**
+ * Posição em bitboards: um {@code long} por (cor, tipo de peça), ocupação por cor
+ * e um mailbox de 64 bytes para consultas O(1) de "qual peça está aqui".
+ * Código de peça = cor * 6 + {@link PieceType#ordinal()}.
+ * O hash Zobrist ({@link #key()}) é mantido incrementalmente em put/remove e doMove/undoMove.
+ */
+public final class BitboardPosition {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int ROOK = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    private static final Piece[] PIECES = new Piece[12];
+    // direitos de roque mantidos quando uma peça sai ou chega em cada casa
+    private static final int[] CASTLE_KEEP = new int[64];
+
+    static {
+        for (Color color : Color.values())
+            for (PieceType type : PieceType.values())
+                PIECES[code(color.ordinal(), type.ordinal())] = Piece.of(color, type);
+        for (int sq = 0; sq < 64; sq++)
+            CASTLE_KEEP[sq] = 0xF;
+        CASTLE_KEEP[0] &= ~WHITE_QUEENSIDE;
+        CASTLE_KEEP[7] &= ~WHITE_KINGSIDE;
+        CASTLE_KEEP[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLE_KEEP[56] &= ~BLACK_QUEENSIDE;
+        CASTLE_KEEP[63] &= ~BLACK_KINGSIDE;
+        CASTLE_KEEP[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] occupancy = new long[2];
+    private final byte[] mailbox = new byte[64];
+    private int sideToMove = WHITE;
+    private int castling;
+    private int enPassant = NO_SQUARE;
+    private int[] undoStack = new int[256];
+    private int undoCount;
+    private long key;
+    // parte do hash que vem de lado/roque/en passant, para poder retirá-la inteira
+    private long stateKey;
+
+    public BitboardPosition() {
+        Arrays.fill(mailbox, (byte) NO_PIECE);
+    }
+
+    /* ================== Fábricas ================== */
+    public static BitboardPosition fromFen(String fen) {
+        String[] parts = fen.trim().split("\\s+");
+        BitboardPosition position = new BitboardPosition();
+        position.placeFen(parts[0]);
+        int side = parts.length > 1 && parts[1].equals("b") ? BLACK : WHITE;
+        int castling = parts.length > 2 ? castleMask(parts[2]) : 0;
+        int enPassant = parts.length > 3 && !parts[3].equals("-")
+                ? Bitboards.square(Position.fromNotation(parts[3]))
+                : NO_SQUARE;
+        position.setState(side, castling, enPassant);
+        return position;
+    }
+
+    public BitboardPosition copy() {
+        BitboardPosition copy = new BitboardPosition();
+        System.arraycopy(pieces, 0, copy.pieces, 0, 12);
+        System.arraycopy(occupancy, 0, copy.occupancy, 0, 2);
+        System.arraycopy(mailbox, 0, copy.mailbox, 0, 64);
+        copy.sideToMove = sideToMove;
+        copy.castling = castling;
+        copy.enPassant = enPassant;
+        copy.undoStack = Arrays.copyOf(undoStack, undoStack.length);
+        copy.undoCount = undoCount;
+        copy.key = key;
+        copy.stateKey = stateKey;
+        return copy;
+    }
+
+    /** Parte de peças da FEN (rank 8 primeiro). */
+    public void placeFen(String fenBoard) {
+        String[] ranks = fenBoard.split("/");
+        for (int r = 0; r <= 7; r++) {
+            String row = ranks[7 - r];
+            int file = 0;
+            for (char c : row.toCharArray()) {
+                if (Character.isDigit(c)) {
+                    file += c - '0';
+                } else {
+                    put(r * 8 + file, pieceCode(Piece.fromUnicode(String.valueOf(c))));
+                    file++;
+                }
+            }
+        }
+    }
+
+    /* ================== Códigos de peça ================== */
+    public static int code(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int colorOf(int code) {
+        return code >= 6 ? BLACK : WHITE;
+    }
+
+    public static int typeOf(int code) {
+        return code >= 6 ? code - 6 : code;
+    }
+
+    public static int pieceCode(Piece piece) {
+        return code(piece.color().ordinal(), piece.type().ordinal());
+    }
+
+    public static Piece piece(int code) {
+        return code == NO_PIECE ? null : PIECES[code];
+    }
+
+    /* ================== Consultas ================== */
+    public int pieceCodeAt(int square) {
+        return mailbox[square];
+    }
+
+    public Piece pieceAt(int square) {
+        return piece(mailbox[square]);
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[code(color, type)];
+    }
+
+    public long occupancy(int color) {
+        return occupancy[color];
+    }
+
+    public long occupied() {
+        return occupancy[WHITE] | occupancy[BLACK];
+    }
+
+    public int kingSquare(int color) {
+        long king = pieces[code(color, KING)];
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int castling() {
+        return castling;
+    }
+
+    public int enPassant() {
+        return enPassant;
+    }
+
+    public void setState(int sideToMove, int castling, int enPassant) {
+        this.sideToMove = sideToMove;
+        this.castling = castling;
+        this.enPassant = enPassant;
+        refreshStateKey();
+    }
+
+    /* ================== Zobrist ================== */
+    public long key() {
+        return key;
+    }
+
+    /** Hash recalculado do zero; deve sempre bater com {@link #key()}. */
+    public long computeKey() {
+        long full = 0L;
+        for (int sq = 0; sq < 64; sq++)
+            if (mailbox[sq] != NO_PIECE)
+                full ^= Zobrist.PIECE_SQUARE[mailbox[sq]][sq];
+        return full ^ computeStateKey();
+    }
+
+    /**
+     * En passant só entra no hash se algum peão pode capturar; senão a mesma posição
+     * teria duas chaves conforme o último lance foi de uma ou duas casas.
+     */
+    private long computeStateKey() {
+        long state = Zobrist.CASTLING[castling];
+        if (sideToMove == BLACK)
+            state ^= Zobrist.SIDE;
+        if (enPassant != NO_SQUARE
+                && (Bitboards.PAWN_ATTACKS[sideToMove ^ 1][enPassant] & pieces(sideToMove, PAWN)) != 0)
+            state ^= Zobrist.EN_PASSANT_FILE[Bitboards.fileOf(enPassant)];
+        return state;
+    }
+
+    private void refreshStateKey() {
+        key ^= stateKey;
+        stateKey = computeStateKey();
+        key ^= stateKey;
+    }
+
+    /* ================== Edição ================== */
+    public void put(int square, int code) {
+        long bit = 1L << square;
+        pieces[code] |= bit;
+        occupancy[colorOf(code)] |= bit;
+        mailbox[square] = (byte) code;
+        key ^= Zobrist.PIECE_SQUARE[code][square];
+    }
+
+    public void remove(int square) {
+        int code = mailbox[square];
+        if (code == NO_PIECE)
+            return;
+        long bit = 1L << square;
+        pieces[code] &= ~bit;
+        occupancy[colorOf(code)] &= ~bit;
+        mailbox[square] = NO_PIECE;
+        key ^= Zobrist.PIECE_SQUARE[code][square];
+    }
+
+    /**
+     * Executa o lance no lugar: captura, en passant (peão na diagonal para casa vazia),
+     * torre do roque (rei anda duas colunas), promoção e estado (lado, roque, en passant).
+     * O estado anterior fica na pilha de undo; desfazer com {@link #undoMove(Move)}.
+     */
+    public void doMove(Move move) {
+        if (mailbox[Bitboards.square(move.from())] == NO_PIECE)
+            throw new IllegalArgumentException("No piece at " + move.from().toNotation());
+        makeMove(Bitboards.square(move.from()), Bitboards.square(move.to()), promotionType(move));
+    }
+
+    public void undoMove(Move move) {
+        if (undoCount == 0)
+            throw new IllegalStateException("No move to undo");
+        unmakeMove(Bitboards.square(move.from()), Bitboards.square(move.to()), promotionType(move));
+    }
+
+    /** Versão sem alocação para lances de {@link PackedMove}. */
+    public void doMove(int move) {
+        makeMove(PackedMove.from(move), PackedMove.to(move), PackedMove.promotion(move));
+    }
+
+    public void undoMove(int move) {
+        unmakeMove(PackedMove.from(move), PackedMove.to(move), PackedMove.promotion(move));
+    }
+
+    public boolean canUndo() {
+        return undoCount > 0;
+    }
+
+    private static int promotionType(Move move) {
+        Piece promotion = move.pawnPromotion();
+        return promotion == null ? NO_PIECE : promotion.type().ordinal();
+    }
+
+    /*
+     * Registro de undo (int):
+     * bits 0-3 peça capturada + 1 | bit 4 captura en passant | bits 5-8 roque anterior | bits 9-15 en passant anterior + 1
+     */
+    private void makeMove(int from, int to, int promotion) {
+        int moving = mailbox[from];
+        int color = colorOf(moving);
+        int type = typeOf(moving);
+
+        int captured = mailbox[to];
+        int undo = (castling << 5) | ((enPassant + 1) << 9);
+        if (type == PAWN && to == enPassant && captured == NO_PIECE) {
+            int victim = color == WHITE ? to - 8 : to + 8;
+            captured = mailbox[victim];
+            remove(victim);
+            undo |= 1 << 4;
+        } else if (captured != NO_PIECE) {
+            remove(to);
+        }
+        undo |= captured + 1;
+        pushUndo(undo);
+
+        remove(from);
+        put(to, promotion == NO_PIECE ? moving : code(color, promotion));
+
+        if (type == KING && Math.abs(to - from) == 2) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            remove(rookFrom);
+            put(rookTo, code(color, ROOK));
+        }
+
+        castling &= CASTLE_KEEP[from] & CASTLE_KEEP[to];
+        enPassant = type == PAWN && Math.abs(to - from) == 16 ? (from + to) >>> 1 : NO_SQUARE;
+        sideToMove ^= 1;
+        refreshStateKey();
+    }
+
+    private void unmakeMove(int from, int to, int promotion) {
+        int undo = undoStack[--undoCount];
+        sideToMove ^= 1;
+        int color = sideToMove;
+
+        int moved = promotion == NO_PIECE ? mailbox[to] : code(color, PAWN);
+        remove(to);
+        put(from, moved);
+
+        if (typeOf(moved) == KING && Math.abs(to - from) == 2) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            remove(rookTo);
+            put(rookFrom, code(color, ROOK));
+        }
+
+        int captured = (undo & 0xF) - 1;
+        if (captured != NO_PIECE)
+            put((undo & (1 << 4)) != 0 ? (color == WHITE ? to - 8 : to + 8) : to, captured);
+        castling = (undo >>> 5) & 0xF;
+        enPassant = ((undo >>> 9) & 0x7F) - 1;
+        refreshStateKey();
+    }
+
+    private void pushUndo(int undo) {
+        if (undoCount == undoStack.length)
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
+        undoStack[undoCount++] = undo;
+    }
+
+    /* ================== Roque ================== */
+    public static int castleMask(Set<CastleRight> rights) {
+        int mask = 0;
+        for (CastleRight right : rights)
+            mask |= 1 << right.ordinal();
+        return mask;
+    }
+
+    public static int castleMask(String fenCastling) {
+        int mask = 0;
+        for (CastleRight right : CastleRight.values())
+            if (fenCastling.contains(right.getFenSymbol()))
+                mask |= 1 << right.ordinal();
+        return mask;
+    }
+
+    public static Set<CastleRight> castleRights(int mask) {
+        Set<CastleRight> rights = EnumSet.noneOf(CastleRight.class);
+        for (CastleRight right : CastleRight.values())
+            if ((mask & (1 << right.ordinal())) != 0)
+                rights.add(right);
+        return rights;
+    }
+}
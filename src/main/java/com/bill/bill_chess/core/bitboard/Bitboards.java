@@ -0,0 +1,93 @@
+package com.bill.bill_chess.core.bitboard;
+
+import com.bill.bill_chess.domain.model.Position;
+
+/**
+ * Constantes e tabelas de ataque para peças não deslizantes.
+ * Casa 0 = a1, casa 63 = h8 (rank-major).
+ */
+public final class Bitboards {
+
+    private Bitboards() {
+    }
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_3 = RANK_1 << 16;
+    public static final long RANK_6 = RANK_1 << 40;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+    /** Casas estritamente entre duas casas alinhadas (0 se não alinhadas). */
+    public static final long[][] BETWEEN = new long[64][64];
+    /** Linha inteira (borda a borda) que passa pelas duas casas (0 se não alinhadas). */
+    public static final long[][] LINE = new long[64][64];
+
+    private static final Position[] POSITIONS = new Position[64];
+
+    static {
+        int[][] knight = { { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 } };
+        int[][] king = { { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 } };
+        for (int sq = 0; sq < 64; sq++) {
+            POSITIONS[sq] = Position.of(rankOf(sq), fileOf(sq));
+            KNIGHT_ATTACKS[sq] = steps(sq, knight);
+            KING_ATTACKS[sq] = steps(sq, king);
+            PAWN_ATTACKS[BitboardPosition.WHITE][sq] = steps(sq, new int[][] { { 1, -1 }, { 1, 1 } });
+            PAWN_ATTACKS[BitboardPosition.BLACK][sq] = steps(sq, new int[][] { { -1, -1 }, { -1, 1 } });
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b)
+                    continue;
+                if ((Magics.rookAttacks(a, 0L) & bit(b)) != 0) {
+                    BETWEEN[a][b] = Magics.rookAttacks(a, bit(b)) & Magics.rookAttacks(b, bit(a));
+                    LINE[a][b] = (Magics.rookAttacks(a, 0L) & Magics.rookAttacks(b, 0L)) | bit(a) | bit(b);
+                } else if ((Magics.bishopAttacks(a, 0L) & bit(b)) != 0) {
+                    BETWEEN[a][b] = Magics.bishopAttacks(a, bit(b)) & Magics.bishopAttacks(b, bit(a));
+                    LINE[a][b] = (Magics.bishopAttacks(a, 0L) & Magics.bishopAttacks(b, 0L)) | bit(a) | bit(b);
+                }
+            }
+        }
+    }
+
+    /* ================== Conversões ================== */
+    public static int square(int rank, int file) {
+        return (rank - 1) * 8 + file;
+    }
+
+    public static int square(Position position) {
+        return square(position.rank(), position.file());
+    }
+
+    /** rank no formato de {@link Position} (1..8). */
+    public static int rankOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int fileOf(int square) {
+        return square & 7;
+    }
+
+    /** Instâncias compartilhadas, evita alocar {@link Position} por lance gerado. */
+    public static Position position(int square) {
+        return POSITIONS[square];
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    private static long steps(int square, int[][] deltas) {
+        long attacks = 0L;
+        for (int[] d : deltas) {
+            int rank = rankOf(square) + d[0];
+            int file = fileOf(square) + d[1];
+            if (Position.isValid(rank, file))
+                attacks |= bit(square(rank, file));
+        }
+        return attacks;
+    }
+}
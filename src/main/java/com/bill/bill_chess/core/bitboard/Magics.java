@@ -0,0 +1,124 @@
+package com.bill.bill_chess.core.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * Ataques de peças deslizantes via magic bitboards.
+ * Os números mágicos são procurados na carga da classe com semente fixa,
+ * então as tabelas são determinísticas e não dependem de constantes copiadas.
+ */
+public final class Magics {
+
+    private Magics() {
+    }
+
+    private static final int[][] ROOK_DIRS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+    private static final int[][] BISHOP_DIRS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final long[] ROOK_MAGIC = new long[64];
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = new long[64];
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_B177_C4E5L);
+        for (int sq = 0; sq < 64; sq++) {
+            init(sq, ROOK_DIRS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_TABLE, random);
+            init(sq, BISHOP_DIRS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_TABLE, random);
+        }
+    }
+
+    /* ================== API pública ================== */
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square])
+                >>> BISHOP_SHIFT[square])];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /* ================== Inicialização ================== */
+    private static void init(int square, int[][] dirs, long[] masks, long[] magics, int[] shifts, long[][] tables,
+            SplittableRandom random) {
+        long mask = relevantMask(square, dirs);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        // enumera todos os subconjuntos da máscara (carry-rippler)
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slowAttacks(square, subset, dirs);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        int[] epoch = new int[size];
+        for (int attempt = 1;; attempt++) {
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) >>> 56) < 6)
+                continue;
+            boolean ok = true;
+            for (int i = 0; i < size && ok; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    ok = false;
+                }
+            }
+            if (ok) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = 64 - bits;
+                tables[square] = table;
+                return;
+            }
+        }
+    }
+
+    /** Casas que podem bloquear o raio, sem as bordas. */
+    private static long relevantMask(int square, int[][] dirs) {
+        long mask = 0L;
+        int rank0 = square >>> 3, file0 = square & 7;
+        for (int[] d : dirs) {
+            int rank = rank0 + d[0], file = file0 + d[1];
+            while (rank + d[0] >= 0 && rank + d[0] <= 7 && file + d[1] >= 0 && file + d[1] <= 7) {
+                mask |= 1L << (rank * 8 + file);
+                rank += d[0];
+                file += d[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowAttacks(int square, long occupied, int[][] dirs) {
+        long attacks = 0L;
+        int rank0 = square >>> 3, file0 = square & 7;
+        for (int[] d : dirs) {
+            int rank = rank0 + d[0], file = file0 + d[1];
+            while (rank >= 0 && rank <= 7 && file >= 0 && file <= 7) {
+                long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupied & bit) != 0)
+                    break;
+                rank += d[0];
+                file += d[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bill.bill_chess.core.bitboard;
+
+/**
+ * Lista de lances empacotados sobre um {@code int[]} fixo. Feita para ser reaproveitada
+ * (uma por ply/thread): {@link #clear()} não libera nada.
+ */
+public final class MoveList {
+
+    /** Nenhuma posição legal passa de 218 lances. */
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
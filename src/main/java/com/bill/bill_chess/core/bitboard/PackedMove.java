@@ -0,0 +1,102 @@
+package com.bill.bill_chess.core.bitboard;
+
+import com.bill.bill_chess.domain.model.Move;
+import com.bill.bill_chess.domain.model.Piece;
+
+/**
+ * Lance codificado em um {@code int}, sem alocação.
+ * <pre>
+ * bits  0-5   origem
+ * bits  6-11  destino
+ * bits 12-15  flags (en passant, roque, promoção | tipo promovido)
+ * bits 16-19  peça movida
+ * bits 20-23  peça capturada + 1 (0 = nenhuma)
+ * </pre>
+ * Os 16 bits baixos identificam o lance; os altos carregam dados para ordenação e conversão.
+ */
+public final class PackedMove {
+
+    private PackedMove() {
+    }
+
+    public static final int NONE = 0;
+
+    public static final int NORMAL = 0;
+    public static final int EN_PASSANT = 1;
+    public static final int CASTLING = 2;
+    public static final int PROMOTION = 8;
+
+    public static int of(int from, int to, int flags, int moved, int captured) {
+        return from | (to << 6) | (flags << 12) | (moved << 16) | ((captured + 1) << 20);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    /** Só origem, destino e flags: o suficiente para comparar lances. */
+    public static int key(int move) {
+        return move & 0xFFFF;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return flags(move) == EN_PASSANT;
+    }
+
+    public static boolean isCastling(int move) {
+        return flags(move) == CASTLING;
+    }
+
+    /** Tipo promovido (ver constantes de {@link BitboardPosition}) ou {@code NO_PIECE}. */
+    public static int promotion(int move) {
+        return isPromotion(move) ? flags(move) & 7 : BitboardPosition.NO_PIECE;
+    }
+
+    public static int moved(int move) {
+        return (move >>> 16) & 15;
+    }
+
+    public static int captured(int move) {
+        return ((move >>> 20) & 15) - 1;
+    }
+
+    public static boolean isCapture(int move) {
+        return captured(move) != BitboardPosition.NO_PIECE;
+    }
+
+    /* ================== Fronteira com o domínio ================== */
+    public static Move toMove(int move) {
+        Piece moved = BitboardPosition.piece(moved(move));
+        Piece promotion = isPromotion(move)
+                ? BitboardPosition.piece(BitboardPosition.code(moved.color().ordinal(), promotion(move)))
+                : null;
+        return new Move(Bitboards.position(from(move)), Bitboards.position(to(move)),
+                BitboardPosition.piece(captured(move)), promotion, isCastling(move), isEnPassant(move), moved);
+    }
+
+    public static String toUci(int move) {
+        String uci = Bitboards.position(from(move)).toNotation() + Bitboards.position(to(move)).toNotation();
+        return isPromotion(move) ? uci + "qrbn".charAt(promotionIndex(promotion(move))) : uci;
+    }
+
+    private static int promotionIndex(int type) {
+        return switch (type) {
+            case BitboardPosition.QUEEN -> 0;
+            case BitboardPosition.ROOK -> 1;
+            case BitboardPosition.BISHOP -> 2;
+            default -> 3;
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.bill.bill_chess.core.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chaves aleatórias para o hash Zobrist. Semente fixa: o mesmo tabuleiro tem o mesmo
+ * hash entre reinícios, então a chave pode ser persistida e usada como índice.
+ */
+public final class Zobrist {
+
+    private Zobrist() {
+    }
+
+    public static final long[][] PIECE_SQUARE = new long[12][64];
+    public static final long SIDE;
+    public static final long[] CASTLING = new long[16];
+    public static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x2B_0B_21_57L);
+        for (int piece = 0; piece < 12; piece++)
+            for (int sq = 0; sq < 64; sq++)
+                PIECE_SQUARE[piece][sq] = random.nextLong();
+        SIDE = random.nextLong();
+        // uma chave por combinação de direitos, 0 para "nenhum"
+        for (int mask = 1; mask < 16; mask++)
+            CASTLING[mask] = random.nextLong();
+        for (int file = 0; file < 8; file++)
+            EN_PASSANT_FILE[file] = random.nextLong();
+    }
+}
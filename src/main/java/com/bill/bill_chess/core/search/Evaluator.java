@@ -0,0 +1,119 @@
+package com.bill.bill_chess.core.search;
+
+import static com.bill.bill_chess.core.bitboard.BitboardPosition.*;
+
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+
+/**
+ * Avaliação estática: material + tabelas peça-casa, com o rei interpolado entre
+ * meio-jogo e final conforme o material que resta. Resultado em centipeões, do ponto
+ * de vista de quem joga.
+ */
+public final class Evaluator {
+
+    private Evaluator() {
+    }
+
+    /** Indexado pelas constantes de tipo de {@link BitboardPosition}. */
+    public static final int[] VALUES = { 100, 500, 320, 330, 900, 0 };
+
+    private static final int[] PHASE_WEIGHT = { 0, 2, 1, 1, 4, 0 };
+    private static final int MAX_PHASE = 24;
+
+    // tabelas escritas do rank 8 para o 1, do ponto de vista das brancas
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50 };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20 };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0 };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20 };
+    private static final int[] KING_MIDDLE_TABLE = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20 };
+    private static final int[] KING_END_TABLE = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50 };
+
+    private static final int[][] TABLES = { PAWN_TABLE, ROOK_TABLE, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE };
+
+    public static int evaluate(BitboardPosition position) {
+        int score = 0;
+        int phase = 0;
+        for (int color = WHITE; color <= BLACK; color++) {
+            int sign = color == WHITE ? 1 : -1;
+            // tabelas estão com o rank 8 no topo: brancas espelham a casa, pretas leem direto
+            int flip = color == WHITE ? 56 : 0;
+            for (int type = PAWN; type < KING; type++) {
+                long pieces = position.pieces(color, type);
+                phase += PHASE_WEIGHT[type] * Long.bitCount(pieces);
+                while (pieces != 0) {
+                    int sq = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    score += sign * (VALUES[type] + TABLES[type][sq ^ flip]);
+                }
+            }
+        }
+        phase = Math.min(phase, MAX_PHASE);
+        for (int color = WHITE; color <= BLACK; color++) {
+            int king = position.kingSquare(color);
+            if (king == NO_SQUARE)
+                continue;
+            int index = king ^ (color == WHITE ? 56 : 0);
+            int kingScore = (KING_MIDDLE_TABLE[index] * phase + KING_END_TABLE[index] * (MAX_PHASE - phase))
+                    / MAX_PHASE;
+            score += color == WHITE ? kingScore : -kingScore;
+        }
+        return position.sideToMove() == WHITE ? score : -score;
+    }
+}
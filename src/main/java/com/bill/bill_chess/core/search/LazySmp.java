@@ -0,0 +1,102 @@
+package com.bill.bill_chess.core.search;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+
+/**
+ * Lazy SMP: a thread chamadora e até {@code maxHelpers} helpers buscam a mesma posição,
+ * todas sobre a mesma {@link TranspositionTable}. Os helpers começam em profundidades
+ * desencontradas e só servem para encher a tabela; o lance devolvido é o da thread principal.
+ * <p>
+ * O pool de helpers é dividido por todas as partidas: helper que ainda estava na fila quando
+ * a busca principal acabou é cancelado, e só os que já rodavam são esperados.
+ */
+public final class LazySmp {
+
+    private final TranspositionTable tt;
+    private final int maxHelpers;
+    private final ExecutorService helpers;
+    private final ThreadLocal<Search> searches;
+
+    public LazySmp(TranspositionTable tt, int maxHelpers) {
+        this.tt = tt;
+        this.maxHelpers = Math.max(0, maxHelpers);
+        this.searches = ThreadLocal.withInitial(() -> new Search(tt));
+        this.helpers = this.maxHelpers == 0 ? null
+                : Executors.newFixedThreadPool(this.maxHelpers, Thread.ofPlatform()
+                        .name("smp-helper-", 0)
+                        .daemon(true)
+                        .factory());
+    }
+
+    /** {@code threads} conta a thread chamadora; 1 é a busca simples, sem helpers. */
+    public SearchResult search(BitboardPosition position, int maxDepth, Duration moveTime, int threads) {
+        return search(position, maxDepth, moveTime, threads, new AtomicBoolean());
+    }
+
+    /**
+     * Igual, mas para antes do prazo quando {@code abort} é ligado por fora (pedido cancelado);
+     * a flag é desta busca e fica ligada no fim.
+     */
+    public SearchResult search(BitboardPosition position, int maxDepth, Duration moveTime, int threads,
+            AtomicBoolean abort) {
+        tt.newSearch();
+        long deadline = System.nanoTime() + moveTime.toNanos();
+
+        int helperCount = Math.min(threads - 1, maxHelpers);
+        List<Helper> running = new ArrayList<>(Math.max(helperCount, 0));
+        for (int i = 1; i <= helperCount; i++) {
+            BitboardPosition copy = position.copy();
+            int startDepth = 1 + (i & 1); // metade dos helpers adiantada em um ply
+            AtomicBoolean started = new AtomicBoolean();
+            running.add(new Helper(helpers.submit(() -> {
+                started.set(true);
+                return searches.get().search(copy, startDepth, maxDepth, deadline, abort);
+            }), started));
+        }
+
+        SearchResult main;
+        try {
+            main = searches.get().search(position, 1, maxDepth, deadline, abort);
+        } finally {
+            abort.set(true);
+        }
+
+        long nodes = main.nodes();
+        for (Helper helper : running) {
+            // na fila atrás dos helpers de outra partida: não segura este lance até o prazo dela
+            if (helper.started().get())
+                nodes += join(helper.future());
+            else
+                helper.future().cancel(false);
+        }
+        return new SearchResult(main.bestMove(), main.score(), main.depth(), nodes, main.elapsedMillis());
+    }
+
+    public void shutdown() {
+        if (helpers != null)
+            helpers.shutdownNow();
+    }
+
+    private record Helper(Future<SearchResult> future, AtomicBoolean started) {
+    }
+
+    private static long join(Future<SearchResult> helper) {
+        try {
+            return helper.get().nodes();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            return 0; // helper só alimenta a TT: falha dele não invalida o lance
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.bill.bill_chess.core.search;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.bill.bill_chess.core.RuleSet;
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.MoveList;
+import com.bill.bill_chess.core.bitboard.PackedMove;
+
+/**
+ * Busca alfa-beta (PVS) com aprofundamento iterativo e quiescência.
+ * Ordenação: lance da tabela de transposição, capturas MVV-LVA, promoções, killers e histórico.
+ * Uma instância por thread: as tabelas de ordenação e as listas de lances são reaproveitadas;
+ * a {@link TranspositionTable} pode ser compartilhada.
+ */
+public final class Search {
+
+    public static final int INFINITY = 32_000;
+    public static final int MATE = 31_000;
+
+    private static final int MAX_PLY = RuleSet.MAX_PLY;
+    private static final int HASH_MOVE_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 100_000;
+    private static final int PROMOTION_SCORE = 90_000;
+    private static final int KILLER_SCORE = 80_000;
+    private static final int HISTORY_MAX = 70_000;
+
+    private final MoveList[] moves = new MoveList[MAX_PLY + 1];
+    private final int[][] scores = new int[MAX_PLY + 1][MoveList.CAPACITY];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[12][64];
+    private final long[] keys = new long[MAX_PLY + 1];
+    private final TranspositionTable tt;
+
+    private BitboardPosition position;
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+    private AtomicBoolean abort;
+    private int rootHashMove;
+    private int iterationBest;
+
+    public Search() {
+        this(new TranspositionTable(1));
+    }
+
+    public Search(TranspositionTable tt) {
+        this.tt = tt;
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = new MoveList();
+    }
+
+    /**
+     * Aprofunda de 1 até {@code maxDepth} ou até acabar o tempo; devolve o melhor lance
+     * da última iteração (completa ou, se cortada, do que já foi visto nela).
+     */
+    public SearchResult search(BitboardPosition position, int maxDepth, Duration moveTime) {
+        tt.newSearch();
+        return search(position, 1, maxDepth, System.nanoTime() + moveTime.toNanos(), new AtomicBoolean());
+    }
+
+    /**
+     * Variante usada pelo {@link LazySmp}: começa em {@code startDepth} e para também quando
+     * {@code abort} é ligado por outra thread. Não avança a geração da TT.
+     */
+    public SearchResult search(BitboardPosition position, int startDepth, int maxDepth, long deadline,
+            AtomicBoolean abort) {
+        long start = System.nanoTime();
+        this.position = position;
+        this.nodes = 0;
+        this.deadline = deadline;
+        this.abort = abort;
+        this.stopped = abort.get();
+        this.rootHashMove = PackedMove.NONE;
+        for (int[] k : killers)
+            k[0] = k[1] = PackedMove.NONE;
+        for (int[] h : history)
+            Arrays.fill(h, 0);
+
+        int bestMove = PackedMove.NONE;
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = startDepth; !stopped && depth <= Math.min(maxDepth, MAX_PLY - 1); depth++) {
+            iterationBest = PackedMove.NONE;
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (stopped) {
+                if (iterationBest != PackedMove.NONE)
+                    bestMove = iterationBest;
+                break;
+            }
+            bestMove = iterationBest;
+            bestScore = score;
+            completed = depth;
+            rootHashMove = bestMove;
+            if (Math.abs(score) >= MATE - MAX_PLY)
+                break; // mate encontrado: aprofundar não muda o lance
+        }
+        if (bestMove == PackedMove.NONE) {
+            // tempo acabou antes do primeiro lance: qualquer lance legal serve
+            MoveList list = moves[0];
+            RuleSet.generateLegal(position, list);
+            if (!list.isEmpty())
+                bestMove = list.get(0);
+        }
+        return new SearchResult(bestMove, bestScore, completed, nodes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /* ================== Alfa-beta ================== */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (checkStop())
+            return 0;
+        keys[ply] = position.key();
+        if (ply > 0 && isRepetition(ply))
+            return 0;
+        if (ply >= MAX_PLY)
+            return Evaluator.evaluate(position);
+
+        boolean inCheck = RuleSet.isInCheck(position, position.sideToMove());
+        if (inCheck)
+            depth++;
+        if (depth <= 0)
+            return quiesce(ply, alpha, beta);
+
+        long key = keys[ply];
+        int hashMove = 0;
+        long entry = tt.probe(key);
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry, ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha))
+                    return score;
+            }
+        }
+        if (ply == 0 && rootHashMove != PackedMove.NONE)
+            hashMove = PackedMove.key(rootHashMove);
+
+        MoveList list = moves[ply];
+        RuleSet.generateLegal(position, list);
+        if (list.isEmpty())
+            return inCheck ? -MATE + ply : 0;
+        scoreMoves(list, ply, hashMove);
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        for (int i = 0; i < list.size(); i++) {
+            int move = pickNext(list, ply, i);
+            position.doMove(move);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta)
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            }
+            position.undoMove(move);
+            if (stopped)
+                return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0)
+                    iterationBest = move;
+            }
+            if (score > alpha)
+                alpha = score;
+            if (alpha >= beta) {
+                if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move))
+                    rememberQuiet(move, ply, depth);
+                break;
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > alphaOrig ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        tt.store(key, PackedMove.key(bestMove), best, depth, bound, ply);
+        return best;
+    }
+
+    private int quiesce(int ply, int alpha, int beta) {
+        if (checkStop())
+            return 0;
+        if (ply >= MAX_PLY)
+            return Evaluator.evaluate(position);
+
+        boolean inCheck = RuleSet.isInCheck(position, position.sideToMove());
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = Evaluator.evaluate(position);
+            if (best >= beta)
+                return best;
+            if (best > alpha)
+                alpha = best;
+        }
+
+        MoveList list = moves[ply];
+        RuleSet.generateLegal(position, list);
+        if (list.isEmpty())
+            return inCheck ? -MATE + ply : 0;
+        scoreMoves(list, ply, 0);
+
+        for (int i = 0; i < list.size(); i++) {
+            int move = pickNext(list, ply, i);
+            // fora de xeque só capturas e promoções; em xeque, todas as evasões
+            if (!inCheck && !PackedMove.isCapture(move) && !PackedMove.isPromotion(move))
+                continue;
+            position.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            position.undoMove(move);
+            if (stopped)
+                return 0;
+            if (score > best)
+                best = score;
+            if (score > alpha)
+                alpha = score;
+            if (alpha >= beta)
+                break;
+        }
+        return best;
+    }
+
+    /* ================== Ordenação ================== */
+    /** {@code hashMove} é a chave de 16 bits do lance ({@link PackedMove#key}), 0 se não houver. */
+    private void scoreMoves(MoveList list, int ply, int hashMove) {
+        int[] score = scores[ply];
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            if (hashMove != 0 && PackedMove.key(move) == hashMove) {
+                score[i] = HASH_MOVE_SCORE;
+            } else if (PackedMove.isCapture(move)) {
+                // MVV-LVA: vítima mais valiosa primeiro, atacante mais barato desempata
+                int victim = BitboardPosition.typeOf(PackedMove.captured(move));
+                int attacker = BitboardPosition.typeOf(PackedMove.moved(move));
+                score[i] = CAPTURE_SCORE + Evaluator.VALUES[victim] * 10 - Evaluator.VALUES[attacker] / 10;
+            } else if (PackedMove.isPromotion(move)) {
+                score[i] = PROMOTION_SCORE + Evaluator.VALUES[PackedMove.promotion(move)];
+            } else if (move == killers[ply][0]) {
+                score[i] = KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                score[i] = KILLER_SCORE - 1;
+            } else {
+                score[i] = Math.min(history[PackedMove.moved(move)][PackedMove.to(move)], HISTORY_MAX);
+            }
+        }
+    }
+
+    /** Seleção parcial: traz para {@code index} o lance de maior nota ainda não visto. */
+    private int pickNext(MoveList list, int ply, int index) {
+        int[] score = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < list.size(); i++)
+            if (score[i] > score[best])
+                best = i;
+        if (best != index) {
+            int move = list.get(best);
+            list.set(best, list.get(index));
+            list.set(index, move);
+            int s = score[best];
+            score[best] = score[index];
+            score[index] = s;
+        }
+        return list.get(index);
+    }
+
+    private void rememberQuiet(int move, int ply, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        history[PackedMove.moved(move)][PackedMove.to(move)] += depth * depth;
+    }
+
+    /* ================== Controle ================== */
+    private boolean checkStop() {
+        if ((++nodes & 2047) == 0 && (System.nanoTime() > deadline || abort.get()))
+            stopped = true;
+        return stopped;
+    }
+
+    /** Repetição dentro do caminho da busca (mesmo lado a jogar: passos de 2 plies). */
+    private boolean isRepetition(int ply) {
+        for (int i = ply - 2; i >= 0; i -= 2)
+            if (keys[i] == keys[ply])
+                return true;
+        return false;
+    }
+}
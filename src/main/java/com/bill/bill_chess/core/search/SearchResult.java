@@ -0,0 +1,9 @@
+package com.bill.bill_chess.core.search;
+
+/**
+ * @param bestMove lance empacotado ({@link com.bill.bill_chess.core.bitboard.PackedMove})
+ * @param score    centipeões do ponto de vista de quem joga
+ * @param depth    última profundidade completada
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, long elapsedMillis) {
+}
@@ -0,0 +1,145 @@
+package com.bill.bill_chess.core.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bill.bill_chess.core.RuleSet;
+
+/**
+ * Tabela de transposição fora do heap, compartilhável entre threads sem lock.
+ * Buckets de 2 entradas de 16 bytes: {@code [key ^ data][data]}. Escritas concorrentes
+ * podem rasgar uma entrada, mas aí o XOR não fecha e a leitura vira miss.
+ * <p>
+ * data: bits 0-15 chave do lance ({@link com.bill.bill_chess.core.bitboard.PackedMove#key}),
+ * 16-31 score, 32-39 profundidade, 40-41 bound, 42-47 geração.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2; // fail-high: score é limite inferior
+    public static final int UPPER = 3; // fail-low: score é limite superior
+
+    /** ByteBuffer indexa por int: acima disso o tamanho é truncado. */
+    public static final int MAX_SIZE_MB = 1024;
+
+    private static final int BUCKET_BYTES = 32;
+    private static final int GENERATION_MASK = 63;
+    private static final long GENERATION_TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongBuffer table;
+    private final long bucketMask;
+    private final AtomicLong lastAdvance = new AtomicLong(System.nanoTime());
+    private volatile int generation;
+
+    public TranspositionTable(int sizeMb) {
+        long bytes = (long) Math.clamp(sizeMb, 1, MAX_SIZE_MB) << 20;
+        long buckets = Long.highestOneBit(bytes / BUCKET_BYTES);
+        this.table = ByteBuffer.allocateDirect((int) (buckets * BUCKET_BYTES))
+                .order(ByteOrder.nativeOrder())
+                .asLongBuffer();
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Nova busca: entradas de buscas anteriores passam a ser as primeiras substituídas.
+     * A geração avança no máximo uma vez por segundo, senão as buscas de outras partidas
+     * rodando ao mesmo tempo envelheceriam as entradas de quem ainda está buscando.
+     */
+    public void newSearch() {
+        long now = System.nanoTime();
+        long last = lastAdvance.get();
+        if (now - last >= GENERATION_TICK_NANOS && lastAdvance.compareAndSet(last, now))
+            generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        for (int i = 0; i < table.capacity(); i++)
+            table.put(i, 0L);
+        generation = 0;
+    }
+
+    /** Devolve o {@code data} da entrada ou 0 se não houver. */
+    public long probe(long key) {
+        int base = index(key);
+        for (int slot = base; slot < base + 4; slot += 2) {
+            long data = table.get(slot + 1);
+            if ((table.get(slot) ^ data) == key && data != 0)
+                return data;
+        }
+        return 0L;
+    }
+
+    public void store(long key, int moveKey, int score, int depth, int bound, int ply) {
+        int generation = this.generation;
+        int base = index(key);
+        int target = base;
+        int worst = Integer.MAX_VALUE;
+        for (int slot = base; slot < base + 4; slot += 2) {
+            long data = table.get(slot + 1);
+            if ((table.get(slot) ^ data) == key && data != 0) {
+                // mesma posição: não perde o lance guardado por um store sem lance
+                if (moveKey == 0)
+                    moveKey = move(data);
+                target = slot;
+                break;
+            }
+            // mais velha e mais rasa sai primeiro
+            int age = (generation - generation(data)) & GENERATION_MASK;
+            int value = data == 0 ? Integer.MIN_VALUE : depth(data) - 8 * age;
+            if (value < worst) {
+                worst = value;
+                target = slot;
+            }
+        }
+        long data = (moveKey & 0xFFFFL)
+                | ((toStored(score, ply) & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+        table.put(target, key ^ data);
+        table.put(target + 1, data);
+    }
+
+    /* ================== Campos de data ================== */
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /** Score relativo à raiz da busca atual (mates corrigidos pelo ply). */
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> 16);
+        if (score >= Search.MATE - RuleSet.MAX_PLY)
+            return score - ply;
+        if (score <= -Search.MATE + RuleSet.MAX_PLY)
+            return score + ply;
+        return score;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & GENERATION_MASK);
+    }
+
+    /** Mate guardado como distância a partir do nó, não da raiz. */
+    private static int toStored(int score, int ply) {
+        if (score >= Search.MATE - RuleSet.MAX_PLY)
+            return score + ply;
+        if (score <= -Search.MATE + RuleSet.MAX_PLY)
+            return score - ply;
+        return score;
+    }
+
+    private int index(long key) {
+        return (int) (key & bucketMask) << 2;
+    }
+}
@@ -3,100 +3,85 @@ package com.bill.bill_chess.domain.model;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.Bitboards;
+import com.bill.bill_chess.domain.enums.CastleRight;
 import com.bill.bill_chess.domain.enums.Color;
 import com.bill.bill_chess.domain.enums.PieceType;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
-public record Board(Piece[][] squares, List<Move> history) {
+/**
+ * Adaptador de domínio sobre {@link BitboardPosition}; a geração de lances
+ * trabalha direto nos bitboards.
+ */
+public record Board(BitboardPosition position, List<Move> history) {
 
-    public Board(Piece[][] squares, List<Move> history) {
-        this.squares = squares;
+    public Board(BitboardPosition position, List<Move> history) {
+        this.position = position;
         this.history = new ArrayList<>(history);
     }
 
     public static Board create() {
-        Piece[][] squares = new Piece[9][8];
-        initializeBoard(squares);
-        return new Board(squares, new ArrayList<>());
+        BitboardPosition position = new BitboardPosition();
+        initializeBoard(position);
+        return new Board(position, new ArrayList<>());
     }
 
     public static Board copy(Board board) {
-        Piece[][] newSquares = new Piece[9][8];
-        for (int r = 0; r < 9; r++) {
-            System.arraycopy(board.squares()[r], 0, newSquares[r], 0, 8);
-        }
-        return new Board(newSquares, board.history());
+        return new Board(board.position().copy(), board.history());
     }
 
     public static Board fromFen(String fenBoard, List<Move> history) {
+        BitboardPosition position = new BitboardPosition();
+        position.placeFen(fenBoard);
+        return new Board(position, history);
+    }
 
-        Piece[][] squares = new Piece[9][8];
-        String[] rankStr = fenBoard.split("/");
-        for (int r = 0; r <= 7; r++) {
-            String row = rankStr[7 - r];
-            int file = 0;
-            for (char c : row.toCharArray()) {
-                if (Character.isDigit(c)) {
-                    file += c - '0';
-                } else {
-                    squares[r+1][file] = Piece.fromUnicode(String.valueOf(c));
-                    file++;
-                }
-            }
-        }
+    private static void initializeBoard(BitboardPosition position) {
+        setupBackRank(position, 1, Color.WHITE);
+        setupPawns(position, 2, Color.WHITE);
+        setupBackRank(position, 8, Color.BLACK);
+        setupPawns(position, 7, Color.BLACK);
+    }
 
-        return new Board(squares, history);
+    /** Lado a jogar, roque e en passant entram no hash junto com as peças. */
+    public void setState(Color active, Set<CastleRight> rights, Position enPassant) {
+        position.setState(active.ordinal(), BitboardPosition.castleMask(rights),
+                enPassant == null ? BitboardPosition.NO_SQUARE : Bitboards.square(enPassant));
     }
 
-    private static void initializeBoard(Piece[][] squares) {
-        for (int rank = 0; rank < 9; rank++) {
-            for (int file = 0; file < 8; file++) {
-                squares[rank][file] = null;
-            }
-        }
-        setupBackRank(squares, 1, Color.WHITE);
-        setupPawns(squares, 2, Color.WHITE);
-        setupBackRank(squares, 8, Color.BLACK);
-        setupPawns(squares, 7, Color.BLACK);
+    public long zobristKey() {
+        return position.key();
     }
 
     public Optional<Piece> pieceAt(Position position) {
-        return Optional.ofNullable(squares[position.rank()][position.file()]);
+        return Optional.ofNullable(this.position.pieceAt(Bitboards.square(position)));
     }
 
     public void doMove(Move move) {
-        Position to = move.to();
-        Position from = move.from();
-        squares[to.rank()][to.file()] = squares[from.rank()][from.file()];
-        squares[from.rank()][from.file()] = null;
+        position.doMove(move);
         this.history.addLast(move);
     }
 
     public void undoMove() {
-        if(history().isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"List empty");
-        Move lastMove = history.removeLast();
-        Position from = lastMove.from();
-        Position to = lastMove.to();
-        squares[from.rank()][from.file()] = squares[to.rank()][to.file()];
-        squares[to.rank()][to.file()] = lastMove.captured().orElse(null);
+        if(history().isEmpty() || !position.canUndo()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"List empty");
+        position.undoMove(history.removeLast());
     }
 
-    private static void setupBackRank(Piece[][] squares, int rank, Color color) {
-        squares[rank][0] = new Piece(PieceType.ROOK, color);
-        squares[rank][1] = new Piece(PieceType.KNIGHT, color);
-        squares[rank][2] = new Piece(PieceType.BISHOP, color);
-        squares[rank][3] = new Piece(PieceType.QUEEN, color);
-        squares[rank][4] = new Piece(PieceType.KING, color);
-        squares[rank][5] = new Piece(PieceType.BISHOP, color);
-        squares[rank][6] = new Piece(PieceType.KNIGHT, color);
-        squares[rank][7] = new Piece(PieceType.ROOK, color);
+    private static void setupBackRank(BitboardPosition position, int rank, Color color) {
+        PieceType[] order = { PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+                PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK };
+        for (int file = 0; file < 8; file++) {
+            position.put(Bitboards.square(rank, file), BitboardPosition.pieceCode(Piece.of(color, order[file])));
+        }
     }
 
-    private static void setupPawns(Piece[][] squares, int rank, Color color) {
+    private static void setupPawns(BitboardPosition position, int rank, Color color) {
         for (int file = 0; file < 8; file++) {
-            squares[rank][file] = new Piece(PieceType.PAWN, color);
+            position.put(Bitboards.square(rank, file), BitboardPosition.pieceCode(Piece.of(color, PieceType.PAWN)));
         }
     }
 }
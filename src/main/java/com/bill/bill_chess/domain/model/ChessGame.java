@@ -57,4 +57,12 @@ public class ChessGame {
     @LastModifiedDate
     private Instant updatedAt = Instant.now();
 
+    /** Plies jogados até o estado de onde a partida foi lida (conferido pelo ActiveGameStore). */
+    private Long version;
+
+    /** Hash Zobrist da posição (peças, lado a jogar, roque e en passant). */
+    public long getZobristKey() {
+        return board.zobristKey();
+    }
+
 }
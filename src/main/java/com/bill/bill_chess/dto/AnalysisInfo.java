@@ -0,0 +1,12 @@
+package com.bill.bill_chess.dto;
+
+import java.util.List;
+
+public record AnalysisInfo(
+                int depth,
+                Integer scoreCp, // centipeões, do ponto de vista de quem joga; null se for mate
+                Integer mate, // lances até o mate (negativo = levando mate)
+                long nodes,
+                List<String> pv // variante principal em UCI, pv[0] = melhor lance
+) {
+}
@@ -0,0 +1,9 @@
+package com.bill.bill_chess.dto;
+
+public record CacheStatsDto(
+                long hits,
+                long misses,
+                double hitRate,
+                long evictions,
+                long size) {
+}
@@ -0,0 +1,7 @@
+package com.bill.bill_chess.dto;
+
+public record CoalescingStatsDto(
+                long requests,
+                long coalesced,
+                int inFlight) {
+}
@@ -1,5 +1,8 @@
 package com.bill.bill_chess.dto;
 
+import java.util.List;
+import java.util.Map;
+
 public record GameStateDto(
                 String id,
                 String fen,
@@ -7,6 +10,7 @@ public record GameStateDto(
                 String status, // IN_PROGRESS, CHECKMATE, STALEMATE
                 boolean inCheck,
                 String lastMoveUci, // e2e4
-                boolean botNext // true -> front dispara bot move
+                boolean botNext, // true -> front dispara bot move
+                Map<String, List<String>> legalMoves // origem -> destinos legais
 ) {
 }
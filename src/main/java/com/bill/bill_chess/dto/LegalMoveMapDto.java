@@ -0,0 +1,8 @@
+package com.bill.bill_chess.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record LegalMoveMapDto(Map<String, List<String>> moves) {
+
+}
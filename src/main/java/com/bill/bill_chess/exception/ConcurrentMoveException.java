@@ -0,0 +1,7 @@
+package com.bill.bill_chess.exception;
+
+public class ConcurrentMoveException extends RuntimeException {
+    public ConcurrentMoveException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.bill.bill_chess.exception;
+
+public class EngineOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public EngineOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,219 @@
+package com.bill.bill_chess.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.config.ActiveGameStoreProperties;
+import com.bill.bill_chess.config.GameStorageProperties;
+import com.bill.bill_chess.domain.enums.GameStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Partidas em andamento em memória, com write-behind para o log de lances.
+ * <p>
+ * Leituras de partidas quentes não vão ao banco. Cada lance atualiza a memória (conferindo a
+ * versão de onde partiu) e entra em {@code dirty}; a cada {@code flushInterval} tudo que está
+ * sujo vai num bulk insert só no {@link GameEventStore}, com todos os lances desde o último
+ * flush. Enquanto não foi gravado, o estado sujo também responde leituras, então a
+ * saída da partida do cache por ociosidade não perde nada.
+ */
+@Slf4j
+@Component
+public class ActiveGameStore {
+
+    private final ChessRepository repository;
+    private final GameEventStore events;
+    private final boolean enabled;
+    private final boolean binary;
+    private final int snapshotEvery;
+    private final Cache<String, ChessEntity> games;
+    private final ConcurrentMap<String, PendingMoves> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final long flushIntervalMillis;
+
+    public ActiveGameStore(ChessRepository repository, GameEventStore events, ActiveGameStoreProperties props,
+            GameStorageProperties storage) {
+        this.repository = repository;
+        this.events = events;
+        this.enabled = props.isEnabled();
+        this.binary = storage.isBinary();
+        this.snapshotEvery = storage.getSnapshotEvery();
+        this.games = Caffeine.newBuilder()
+                .maximumSize(props.getMaxGames())
+                .expireAfterAccess(props.getIdleTtl())
+                .build();
+        this.flusher = enabled
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("active-games-flusher").daemon(true).factory())
+                : null;
+        this.flushIntervalMillis = Math.max(1, props.getFlushInterval().toMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (flusher != null)
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+    }
+
+    /* ===== leitura ===== */
+    public Optional<ChessEntity> find(String gameId) {
+        ChessEntity hot = hot(gameId);
+        if (hot != null)
+            return Optional.of(hot);
+        Optional<ChessEntity> loaded = events.load(gameId).blockOptional();
+        loaded.ifPresent(this::cache);
+        return loaded;
+    }
+
+    public Mono<ChessEntity> findAsync(String gameId) {
+        return Mono.defer(() -> {
+            ChessEntity hot = hot(gameId);
+            if (hot != null)
+                return Mono.just(hot);
+            return events.load(gameId).doOnNext(this::cache);
+        });
+    }
+
+    /** Cópia em memória mais nova que {@code loaded}, se houver; nunca vai ao banco. */
+    public ChessEntity latest(ChessEntity loaded) {
+        ChessEntity hot = hot(loaded.id());
+        return hot != null ? hot : loaded;
+    }
+
+    /** Partida como estava depois do ply (replays e auditoria); vazio se o ply não existe. */
+    public Mono<ChessEntity> findAt(String gameId, int ply) {
+        return Mono.defer(() -> {
+            ChessEntity hot = hot(gameId);
+            if (hot != null && hot.moves().size() == ply)
+                return Mono.just(hot);
+            // lances ainda só em memória não estão no log: refeitos a partir do que está pendente
+            PendingMoves pending = enabled ? dirty.get(gameId) : null;
+            if (pending != null && ply > pending.fromPly() && ply <= pending.next().moves().size())
+                return events.loadAt(pending, ply);
+            return events.loadAt(gameId, ply).filter(entity -> entity.moves().size() == ply);
+        });
+    }
+
+    /* ===== escrita ===== */
+    /** Partida nova: o insert do cabeçalho é síncrono porque o id vem do Mongo. */
+    public ChessEntity create(ChessEntity entity) {
+        ChessEntity saved = GameCodec.expand(repository.save(binary ? GameCodec.compact(entity) : entity));
+        cache(saved);
+        return saved;
+    }
+
+    /**
+     * Registra {@code next}, calculado a partir de {@code previous}: {@code false} se a partida
+     * não está mais na versão de onde o lance partiu. Com o write-behind a conferência é em
+     * memória e acontece na assinatura (partida fria: antes confere o último ply do log); sem
+     * ele, o insert no log é reativo.
+     */
+    public Mono<Boolean> appendMove(ChessEntity previous, ChessEntity next) {
+        if (!enabled)
+            return events.append(PendingMoves.of(previous, next, snapshotEvery));
+        return Mono.defer(() -> {
+            Boolean applied = applyInMemory(previous, next, false);
+            if (applied != null)
+                return Mono.just(applied);
+            // saiu da memória entre a leitura e o lance: só aceita se o log ainda está no mesmo ply
+            return events.lastPly(next.id())
+                    .map(saved -> saved == previous.moves().size()
+                            && Boolean.TRUE.equals(applyInMemory(previous, next, true)))
+                    .defaultIfEmpty(false);
+        });
+    }
+
+    /** {@code null} se a partida não está em memória e o log ainda não foi conferido. */
+    private Boolean applyInMemory(ChessEntity previous, ChessEntity next, boolean checkedLog) {
+        Boolean[] applied = { null };
+        dirty.compute(next.id(), (id, pending) -> {
+            ChessEntity current = pending != null ? pending.next() : games.getIfPresent(id);
+            if (current == null && !checkedLog)
+                return null;
+            if (current != null && !Objects.equals(current.version(), previous.version())) {
+                applied[0] = false;
+                return pending;
+            }
+            applied[0] = true;
+            cache(next);
+            return pending != null ? pending.then(next, snapshotEvery)
+                    : PendingMoves.of(previous, next, snapshotEvery);
+        });
+        return applied[0];
+    }
+
+    /* ===== flush ===== */
+    /** Grava tudo que está sujo num bulk insert só; devolve quantas partidas foram gravadas. */
+    public synchronized int flush() {
+        List<PendingMoves> batch = new ArrayList<>(dirty.values());
+        if (batch.isEmpty())
+            return 0;
+        Set<String> conflicts = events.appendAll(batch);
+        // só sai de dirty depois de gravado; um lance que chegou no meio parte do ply já salvo
+        for (PendingMoves flushed : batch)
+            dirty.computeIfPresent(flushed.next().id(), (id, current) -> current == flushed ? null
+                    : conflicts.contains(id) ? null : current.after(flushed));
+        if (!conflicts.isEmpty()) {
+            // outro nó gravou essas partidas: a memória deixa de valer e a próxima leitura recarrega
+            log.warn("{} of {} active games changed in Mongo behind the store", conflicts.size(), batch.size());
+            conflicts.forEach(games::invalidate);
+        }
+        return batch.size() - conflicts.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Active games flush failed, retrying: {}", e.getMessage());
+        }
+    }
+
+    public int pendingWrites() {
+        return dirty.size();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (flusher == null)
+            return;
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private ChessEntity hot(String gameId) {
+        if (!enabled)
+            return null;
+        // o sujo é sempre o mais novo
+        PendingMoves pending = dirty.get(gameId);
+        return pending != null ? pending.next() : games.getIfPresent(gameId);
+    }
+
+    /** Só partidas em andamento ficam quentes; as encerradas saem assim que gravadas. */
+    private void cache(ChessEntity entity) {
+        if (!enabled)
+            return;
+        if (GameStatus.IN_PROGRESS.name().equals(entity.status()))
+            games.put(entity.id(), entity);
+        else
+            games.invalidate(entity.id());
+    }
+}
@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -17,27 +18,39 @@ public record ChessEntity(
                 String enPassantSquare, // "e3" ou "-"
                 int halfMoveClock,
                 int fullMoveNumber,
+                long zobristKey, // hash Zobrist da posição
                 boolean inCheck,
                 String status,
                 List<String> moves, // histórico UCI
+                byte[] packedBoard, // modo binário, ver GameCodec
+                byte[] packedMoves,
                 Instant createdAt,
-                Instant updatedAt) {
+                Instant updatedAt,
+                // +1 por lance, conferido pelo ActiveGameStore; sem @Version: o documento é gravado uma
+                // vez e a concorrência fica na chave do evento. null em documentos antigos
+                Long version) {
 
         public String toFen() {
-                return fenBoard + " " + activeColor + " " + castlingRights + " " + enPassantSquare + " " + halfMoveClock
+                String castling = castlingRights == null || castlingRights.isEmpty() ? "-" : castlingRights;
+                return fenBoard + " " + activeColor + " " + castling + " " + enPassantSquare + " " + halfMoveClock
                                 + " " + fullMoveNumber;
         }
 
+        private static final String INITIAL_BOARD = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR";
+
         public static ChessEntity initial() {
                 return new ChessEntity(
                                 null,
-                                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+                                INITIAL_BOARD,
                                 "w", "b", "KQkq", "-", 0, 1,
+                                BitboardPosition.fromFen(INITIAL_BOARD + " w KQkq -").key(),
                                 false,
                                 "IN_PROGRESS",
                                 new ArrayList<>(),
+                                null, null,
+                                Instant.now(),
                                 Instant.now(),
-                                Instant.now());
+                                0L);
         }
         public boolean isTurnBot(){
             return activeColor().equals(playerBotColor());
@@ -0,0 +1,266 @@
+package com.bill.bill_chess.persistence;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.config.EvalStoreProperties;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Melhores lances em disco, mapeado em memória: sobrevive a restarts.
+ * <p>
+ * Cabeçalho de 16 bytes (magic, versão, quantidade) seguido de registros de 16 bytes
+ * {@code [hash ^ data][data]}, com data = {@code [lance UCI em ASCII 6][profundidade 2]}, o
+ * mesmo truque da {@link com.bill.bill_chess.core.search.TranspositionTable}: leitura que
+ * pega um registro no meio de uma escrita não fecha o XOR e vira miss. Por isso as leituras
+ * não travam; só o escritor é sincronizado. Uma posição buscada mais fundo é sobrescrita no
+ * lugar; com o arquivo cheio fica a metade mais funda. Arquivo de outra versão é descartado.
+ */
+@Slf4j
+@Component
+public class EvalStore {
+
+    public record Hit(String move, int depth) {
+    }
+
+    private static final int MAGIC = 0x42434553; // "BCES"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 16;
+    private static final int MOVE_BYTES = 6;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final int maxRecords;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ExecutorService writer;
+
+    // endereçamento aberto: hash -> índice do registro (+1; 0 = vazio); a chave fica no registro
+    private final AtomicIntegerArray index;
+    private final int indexMask;
+    private volatile int count;
+
+    public EvalStore(EvalStoreProperties props) {
+        this.maxRecords = Math.max(1, props.getMaxRecords());
+        FileChannel openedChannel = null;
+        MappedByteBuffer mapped = null;
+        if (props.isEnabled()) {
+            try {
+                Path file = Path.of(props.getPath());
+                if (file.getParent() != null)
+                    Files.createDirectories(file.getParent());
+                openedChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                mapped = openedChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_BYTES + (long) maxRecords * RECORD_BYTES);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException | RuntimeException e) {
+                // sem disco gravável o cache em memória continua funcionando sozinho
+                log.warn("Eval store indisponível em {}: {}", props.getPath(), e.getMessage());
+                closeQuietly(openedChannel);
+                openedChannel = null;
+                mapped = null;
+            }
+        }
+        this.channel = openedChannel;
+        this.buffer = mapped;
+
+        int capacity = Integer.highestOneBit(maxRecords * 2 - 1) << 1;
+        this.index = new AtomicIntegerArray(buffer == null ? 0 : capacity);
+        this.indexMask = capacity - 1;
+        this.writer = buffer == null ? null
+                : Executors.newSingleThreadExecutor(Thread.ofPlatform().name("eval-store-writer").daemon(true).factory());
+        if (buffer != null)
+            load(props.getPath());
+    }
+
+    public boolean isEnabled() {
+        return buffer != null;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Lance guardado para a posição, ou {@code null}. Não trava: pode correr junto com escritas. */
+    public Hit find(long key) {
+        if (buffer == null || key == 0L)
+            return null;
+        for (int i = home(key), slot; (slot = index.get(i)) != 0; i = (i + 1) & indexMask) {
+            long data = dataAt(slot - 1);
+            if (data != 0 && checkAt(slot - 1) == (key ^ data))
+                return new Hit(moveOf(data), depthOf(data));
+        }
+        return null;
+    }
+
+    /** Grava fora da thread chamadora; a busca que produziu o lance não espera o disco. */
+    public void appendAsync(long key, int depth, String move) {
+        if (writer != null)
+            writer.execute(() -> append(key, depth, move));
+    }
+
+    public synchronized void append(long key, int depth, String move) {
+        if (buffer == null || key == 0L || move.isEmpty() || move.length() > MOVE_BYTES)
+            return;
+        long data = pack(depth, move);
+        int i = locate(key);
+        int slot = index.get(i);
+        if (slot != 0) {
+            if (depthOf(dataAt(slot - 1)) < depth)
+                write(slot - 1, key, data);
+            return;
+        }
+        if (count == maxRecords) {
+            compact();
+            i = locate(key);
+        }
+        int record = count;
+        write(record, key, data);
+        // registro antes da contagem: um crash no meio perde só o último
+        buffer.putInt(8, record + 1);
+        count = record + 1;
+        index.set(i, record + 1);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer == null)
+            return;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            buffer.force();
+        }
+        closeQuietly(channel);
+    }
+
+    /* ================== Índice ================== */
+    private void load(String path) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            // outro layout (ou outro Zobrist) daria lances errados: recomeça do zero
+            if (buffer.getInt(0) == MAGIC)
+                log.info("Eval store {} na versão {}, atual {}: descartado", path, buffer.getInt(4), VERSION);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, 0);
+        }
+        int stored = Math.clamp(buffer.getInt(8), 0, maxRecords);
+        for (int record = 0; record < stored; record++)
+            index.set(locate(keyAt(record)), record + 1);
+        count = stored;
+        log.info("Eval store {}: {} posições carregadas", path, stored);
+    }
+
+    /** Cheio: fica a metade mais funda, que é a mais cara de refazer. */
+    private void compact() {
+        int[] depths = new int[count];
+        for (int record = 0; record < count; record++)
+            depths[record] = depthOf(dataAt(record));
+        int[] sorted = depths.clone();
+        Arrays.sort(sorted);
+        int threshold = sorted[count / 2];
+        int keepAtThreshold = maxRecords / 2;
+        for (int depth : depths)
+            if (depth > threshold)
+                keepAtThreshold--;
+
+        for (int i = 0; i < index.length(); i++)
+            index.set(i, 0);
+        int kept = 0;
+        for (int record = 0; record < count; record++) {
+            if (depths[record] < threshold || (depths[record] == threshold && keepAtThreshold-- <= 0))
+                continue;
+            long key = keyAt(record);
+            if (kept != record)
+                write(kept, key, dataAt(record));
+            index.set(locate(key), kept + 1);
+            kept++;
+        }
+        buffer.putInt(8, kept);
+        count = kept;
+        log.info("Eval store cheio: {} de {} posições mantidas (profundidade >= {})", kept, maxRecords, threshold);
+    }
+
+    /** Posição do índice com essa chave ou a vaga onde ela entraria (só o escritor chama). */
+    private int locate(long key) {
+        int i = home(key);
+        for (int slot; (slot = index.get(i)) != 0 && keyAt(slot - 1) != key;)
+            i = (i + 1) & indexMask;
+        return i;
+    }
+
+    private int home(long key) {
+        return (int) (key ^ (key >>> 32)) & indexMask;
+    }
+
+    /* ================== Registros ================== */
+    private void write(int record, long key, long data) {
+        int offset = HEADER_BYTES + record * RECORD_BYTES;
+        LONGS.setRelease(buffer, offset, key ^ data);
+        LONGS.setRelease(buffer, offset + 8, data);
+    }
+
+    private long dataAt(int record) {
+        return (long) LONGS.getAcquire(buffer, HEADER_BYTES + record * RECORD_BYTES + 8);
+    }
+
+    private long checkAt(int record) {
+        return (long) LONGS.getAcquire(buffer, HEADER_BYTES + record * RECORD_BYTES);
+    }
+
+    private long keyAt(int record) {
+        return checkAt(record) ^ dataAt(record);
+    }
+
+    private static long pack(int depth, String move) {
+        long data = (long) (depth & 0xFFFF) << 48;
+        for (int i = 0; i < move.length(); i++)
+            data |= (long) (move.charAt(i) & 0xFF) << (8 * i);
+        return data;
+    }
+
+    private static String moveOf(long data) {
+        byte[] ascii = new byte[MOVE_BYTES];
+        int length = 0;
+        while (length < MOVE_BYTES && (ascii[length] = (byte) (data >>> (8 * length))) != 0)
+            length++;
+        return new String(ascii, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static int depthOf(long data) {
+        return (short) (data >>> 48);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nada a fazer no shutdown
+        }
+    }
+}
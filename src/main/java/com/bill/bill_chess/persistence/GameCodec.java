@@ -0,0 +1,219 @@
+package com.bill.bill_chess.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.Bitboards;
+import com.bill.bill_chess.domain.model.Position;
+
+/**
+ * Formato binário do documento da partida.
+ * <pre>
+ * packedBoard  32 bytes, 4 bits por casa de a8 a h1 (ordem do FEN), a8 no nibble alto do byte 0:
+ *              0 = vazia, 1-6 = PNBRQK brancas, 9-14 = pnbrqk pretas
+ * packedMoves  2 bytes por lance, big-endian, mesmos 16 bits baixos do PackedMove:
+ *              origem (0-5) | destino (6-11) | flags (12-15: 8 | tipo promovido, 0 sem promoção)
+ * </pre>
+ * Documentos gravados antes do log de lances podem misturar os dois formatos: o tabuleiro em
+ * texto, se existir, vale mais que o binário, e os lances em texto continuam os binários. O
+ * {@link GameEventStore} regrava esses documentos compactados na primeira leitura.
+ * <p>
+ * Em memória a partida continua em texto (FEN para os motores, UCI para o cliente); quem só
+ * precisa da posição usa {@link #position}, que vai dos bytes direto para os bitboards.
+ */
+public final class GameCodec {
+
+    private GameCodec() {
+    }
+
+    public static final int BOARD_BYTES = 32;
+
+    private static final String PIECES = ".PNBRQK..pnbrqk";
+    // tipo promovido -> constantes do BitboardPosition (ROOK=1, KNIGHT=2, BISHOP=3, QUEEN=4)
+    private static final String PROMOTIONS = ".rnbq";
+    private static final int PROMOTION = 8;
+    // nibble do packedBoard -> código de peça do BitboardPosition (cor * 6 + tipo)
+    private static final int[] NIBBLE_CODES = { -1, 0, 2, 3, 1, 4, 5, -1, -1, 6, 8, 9, 7, 10, 11, -1 };
+
+    /* ================== Entidade ================== */
+    /** Forma usada em memória: FEN e UCI preenchidos, campos binários vazios. */
+    public static ChessEntity expand(ChessEntity stored) {
+        if (stored.packedBoard() == null && stored.packedMoves() == null)
+            return stored;
+        String fenBoard = stored.fenBoard() != null ? stored.fenBoard() : unpackBoard(stored.packedBoard());
+        List<String> moves = moves(stored);
+        return new ChessEntity(stored.id(), fenBoard, stored.activeColor(), stored.playerBotColor(),
+                stored.castlingRights(), stored.enPassantSquare(), stored.halfMoveClock(), stored.fullMoveNumber(),
+                stored.zobristKey(), stored.inCheck(), stored.status(), moves, null, null, stored.createdAt(),
+                stored.updatedAt(), stored.version());
+    }
+
+    /** Histórico em UCI: prefixo binário seguido da cauda em texto. Lista mutável. */
+    public static List<String> moves(ChessEntity stored) {
+        List<String> moves = unpackMoves(stored.packedMoves());
+        if (stored.moves() != null)
+            moves.addAll(stored.moves());
+        return moves;
+    }
+
+    /** Forma gravada no modo binário: só os campos binários, sem FEN nem UCI. */
+    public static ChessEntity compact(ChessEntity entity) {
+        return new ChessEntity(entity.id(), null, entity.activeColor(), entity.playerBotColor(),
+                entity.castlingRights(), entity.enPassantSquare(), entity.halfMoveClock(), entity.fullMoveNumber(),
+                entity.zobristKey(), entity.inCheck(), entity.status(), null, packBoard(entity.fenBoard()),
+                packMoves(entity.moves()), entity.createdAt(), entity.updatedAt(), entity.version());
+    }
+
+    /** Só a posição compactada, sem histórico (snapshots: os lances já estão no log). */
+    public static ChessEntity compactBoard(ChessEntity entity) {
+        return new ChessEntity(entity.id(), null, entity.activeColor(), entity.playerBotColor(),
+                entity.castlingRights(), entity.enPassantSquare(), entity.halfMoveClock(), entity.fullMoveNumber(),
+                entity.zobristKey(), entity.inCheck(), entity.status(), null, packBoard(entity.fenBoard()), null,
+                entity.createdAt(), entity.updatedAt(), entity.version());
+    }
+
+    /** Posição com lado, roque e en passant, sem montar FEN quando o tabuleiro está em binário. */
+    public static BitboardPosition position(ChessEntity stored) {
+        BitboardPosition position = new BitboardPosition();
+        if (stored.fenBoard() != null)
+            position.placeFen(stored.fenBoard());
+        else
+            unpackBoard(stored.packedBoard(), position);
+        String enPassant = stored.enPassantSquare();
+        position.setState("b".equals(stored.activeColor()) ? BitboardPosition.BLACK : BitboardPosition.WHITE,
+                BitboardPosition.castleMask(stored.castlingRights() == null ? "" : stored.castlingRights()),
+                enPassant == null || enPassant.equals("-") ? BitboardPosition.NO_SQUARE
+                        : Bitboards.square(Position.fromNotation(enPassant)));
+        return position;
+    }
+
+    /* ================== Tabuleiro ================== */
+    public static byte[] packBoard(String fenBoard) {
+        byte[] packed = new byte[BOARD_BYTES];
+        int index = 0;
+        for (int i = 0; i < fenBoard.length(); i++) {
+            char c = fenBoard.charAt(i);
+            if (c == '/')
+                continue;
+            if (Character.isDigit(c)) {
+                index += c - '0';
+                continue;
+            }
+            int code = PIECES.indexOf(c);
+            if (code <= 0 || index >= 64)
+                throw new IllegalArgumentException("FEN inválido: " + fenBoard);
+            packed[index >>> 1] |= (byte) (index % 2 == 0 ? code << 4 : code);
+            index++;
+        }
+        if (index != 64)
+            throw new IllegalArgumentException("FEN inválido: " + fenBoard);
+        return packed;
+    }
+
+    public static String unpackBoard(byte[] packed) {
+        StringBuilder fen = new StringBuilder(71);
+        int empty = 0;
+        for (int index = 0; index < 64; index++) {
+            int code = index % 2 == 0 ? (packed[index >>> 1] >>> 4) & 15 : packed[index >>> 1] & 15;
+            if (code == 0) {
+                empty++;
+            } else {
+                if (empty > 0)
+                    fen.append(empty);
+                empty = 0;
+                fen.append(PIECES.charAt(code));
+            }
+            if (index % 8 == 7) {
+                if (empty > 0)
+                    fen.append(empty);
+                empty = 0;
+                if (index < 63)
+                    fen.append('/');
+            }
+        }
+        return fen.toString();
+    }
+
+    /** Parte de peças da FEN, lida direto do mailbox. */
+    public static String fenBoard(BitboardPosition position) {
+        byte[] packed = new byte[BOARD_BYTES];
+        for (int index = 0; index < 64; index++) {
+            int code = position.pieceCodeAt((7 - (index >>> 3)) * 8 + (index & 7));
+            if (code != BitboardPosition.NO_PIECE)
+                packed[index >>> 1] |= (byte) (index % 2 == 0 ? nibble(code) << 4 : nibble(code));
+        }
+        return unpackBoard(packed);
+    }
+
+    private static int nibble(int code) {
+        for (int nibble = 0; nibble < NIBBLE_CODES.length; nibble++)
+            if (NIBBLE_CODES[nibble] == code)
+                return nibble;
+        throw new IllegalArgumentException("Peça inválida: " + code);
+    }
+
+    private static void unpackBoard(byte[] packed, BitboardPosition position) {
+        for (int index = 0; index < 64; index++) {
+            int code = NIBBLE_CODES[index % 2 == 0 ? (packed[index >>> 1] >>> 4) & 15 : packed[index >>> 1] & 15];
+            // ordem do FEN: a8 primeiro; nos bitboards a1 = 0
+            if (code >= 0)
+                position.put((7 - (index >>> 3)) * 8 + (index & 7), code);
+        }
+    }
+
+    /* ================== Lances ================== */
+    public static byte[] packMoves(List<String> uci) {
+        byte[] packed = new byte[uci.size() * 2];
+        for (int i = 0; i < uci.size(); i++) {
+            int move = packMove(uci.get(i));
+            packed[2 * i] = (byte) (move >>> 8);
+            packed[2 * i + 1] = (byte) move;
+        }
+        return packed;
+    }
+
+    /** Lista mutável, para o {@link #moves} anexar a cauda em texto. */
+    public static List<String> unpackMoves(byte[] packed) {
+        if (packed == null)
+            return new ArrayList<>();
+        List<String> moves = new ArrayList<>(packed.length / 2 + 8);
+        for (int i = 0; i + 1 < packed.length; i += 2)
+            moves.add(unpackMove(((packed[i] & 0xFF) << 8) | (packed[i + 1] & 0xFF)));
+        return moves;
+    }
+
+    static int packMove(String uci) {
+        int move = square(uci, 0) | (square(uci, 2) << 6);
+        if (uci.length() == 5) {
+            int type = PROMOTIONS.indexOf(Character.toLowerCase(uci.charAt(4)));
+            if (type <= 0)
+                throw new IllegalArgumentException("Lance inválido: " + uci);
+            move |= (PROMOTION | type) << 12;
+        }
+        return move;
+    }
+
+    static String unpackMove(int move) {
+        StringBuilder uci = new StringBuilder(5);
+        appendSquare(uci, move & 63);
+        appendSquare(uci, (move >>> 6) & 63);
+        int flags = (move >>> 12) & 15;
+        if ((flags & PROMOTION) != 0)
+            uci.append(PROMOTIONS.charAt(flags & 7));
+        return uci.toString();
+    }
+
+    /** a1 = 0, como nos bitboards. */
+    private static int square(String uci, int offset) {
+        int file = uci.charAt(offset) - 'a';
+        int rank = uci.charAt(offset + 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7)
+            throw new IllegalArgumentException("Lance inválido: " + uci);
+        return rank * 8 + file;
+    }
+
+    private static void appendSquare(StringBuilder uci, int square) {
+        uci.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
@@ -0,0 +1,260 @@
+package com.bill.bill_chess.persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.config.GameStorageProperties;
+import com.bill.bill_chess.core.GameRules;
+import com.mongodb.bulk.BulkWriteError;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Partida como log de lances: o documento em {@code boards} é gravado uma vez (cabeçalho e
+ * estado inicial) e cada lance vira um insert em {@code game_events}, com um snapshot em
+ * {@code game_snapshots} a cada {@code snapshotEvery} plies.
+ * <p>
+ * Montar a partida em qualquer ply = posição do snapshot mais recente até ele + no máximo
+ * {@code snapshotEvery - 1} lances refeitos nos bitboards pelo {@link GameRules#replay}; o
+ * histórico vem dos eventos, que o snapshot não repete. Documentos antigos, que já têm o
+ * histórico em {@code boards}, servem de base e o log continua a partir deles; com
+ * {@code chess.storage.binary} os que ainda estão em texto são regravados compactados na
+ * primeira leitura.
+ */
+@Slf4j
+@Component
+public class GameEventStore {
+
+    public static final int LAST_PLY = 999_999;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReactiveMongoTemplate reactiveTemplate;
+    private final GameRules rules;
+    private final boolean binary;
+
+    public GameEventStore(MongoTemplate mongoTemplate, ReactiveMongoTemplate reactiveTemplate, GameRules rules,
+            GameStorageProperties storage) {
+        this.mongoTemplate = mongoTemplate;
+        this.reactiveTemplate = reactiveTemplate;
+        this.rules = rules;
+        this.binary = storage.isBinary();
+    }
+
+    /* ===== leitura ===== */
+    public Mono<ChessEntity> load(String gameId) {
+        return loadAt(gameId, LAST_PLY);
+    }
+
+    /** Estado depois do ply pedido (ou do último, se a partida for mais curta). */
+    public Mono<ChessEntity> loadAt(String gameId, int ply) {
+        return reactiveTemplate.findById(gameId, ChessEntity.class)
+                .flatMap(base -> migrate(base).thenReturn(base))
+                .flatMap(base -> {
+                    int basePly = GameCodec.moves(base).size();
+                    if (basePly > ply)
+                        return Mono.empty();
+                    return latestSnapshot(gameId, basePly, ply)
+                            .map(snapshot -> new Start(snapshot.state(), snapshot.ply()))
+                            .defaultIfEmpty(new Start(base, basePly))
+                            .flatMap(start -> replay(base, start, ply));
+                });
+    }
+
+    /**
+     * Documento em texto de antes do modo binário: regravado compactado na primeira leitura.
+     * Falha só fica no log; o documento continua legível nos dois formatos.
+     */
+    private Mono<Void> migrate(ChessEntity base) {
+        if (!binary || base.fenBoard() == null && (base.moves() == null || base.moves().isEmpty()))
+            return Mono.empty();
+        ChessEntity packed = GameCodec.compact(GameCodec.expand(base));
+        Update update = new Update()
+                .set("packedBoard", packed.packedBoard())
+                .set("packedMoves", packed.packedMoves())
+                .unset("fenBoard")
+                .unset("moves");
+        return reactiveTemplate.updateFirst(Query.query(Criteria.where("_id").is(base.id())), update,
+                ChessEntity.class)
+                .doOnNext(result -> log.info("Game {} rewritten in the packed format", base.id()))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Game {} not migrated: {}", base.id(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /** Último ply gravado: o evento mais novo ou, sem eventos, o histórico do documento base. */
+    public Mono<Integer> lastPly(String gameId) {
+        Query query = Query.query(Criteria.where("_id")
+                .gt(MoveEvent.key(gameId, 0))
+                .lte(MoveEvent.key(gameId, LAST_PLY)))
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(1);
+        return reactiveTemplate.findOne(query, MoveEvent.class)
+                .map(MoveEvent::ply)
+                .switchIfEmpty(Mono.defer(() -> reactiveTemplate.findById(gameId, ChessEntity.class)
+                        .map(base -> GameCodec.moves(base).size())));
+    }
+
+    /**
+     * Estado depois de um ply que ainda só existe em memória (write-behind): parte do snapshot
+     * pendente mais novo até ele, ou do log no ply já gravado, e refaz os lances de
+     * {@code pending.next()}. Sem a hora de cada lance, {@code updatedAt} é a do ponto de partida.
+     */
+    public Mono<ChessEntity> loadAt(PendingMoves pending, int ply) {
+        ChessEntity next = pending.next();
+        Mono<ChessEntity> start = Mono.justOrEmpty(pending.snapshots().stream()
+                .filter(snapshot -> snapshot.moves().size() <= ply)
+                .reduce((older, newer) -> newer))
+                .switchIfEmpty(Mono.defer(() -> loadAt(next.id(), pending.fromPly())
+                        .filter(saved -> saved.moves().size() == pending.fromPly())));
+        return start.map(from -> {
+            int[] moves = next.moves().subList(from.moves().size(), ply).stream()
+                    .mapToInt(GameCodec::packMove).toArray();
+            return moves.length == 0 ? from : rules.replay(from, moves, from.updatedAt());
+        });
+    }
+
+    /** Ponto de partida do replay, ainda no formato gravado. */
+    private record Start(ChessEntity state, int ply) {
+    }
+
+    private Mono<GameSnapshot> latestSnapshot(String gameId, int afterPly, int upToPly) {
+        Query query = Query.query(Criteria.where("_id")
+                .gt(MoveEvent.key(gameId, afterPly))
+                .lte(MoveEvent.key(gameId, upToPly)))
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(1);
+        return reactiveTemplate.findOne(query, GameSnapshot.class);
+    }
+
+    /**
+     * Snapshots só têm a posição: o histórico vem do documento base e dos eventos até o ply, e
+     * só os eventos depois do ponto de partida são refeitos nos bitboards.
+     */
+    private Mono<ChessEntity> replay(ChessEntity base, Start start, int upToPly) {
+        List<String> history = GameCodec.moves(base);
+        Query query = Query.query(Criteria.where("_id")
+                .gt(MoveEvent.key(base.id(), history.size()))
+                .lte(MoveEvent.key(base.id(), upToPly)))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+        return reactiveTemplate.find(query, MoveEvent.class)
+                .collectList()
+                .map(events -> {
+                    List<MoveEvent> tail = new ArrayList<>();
+                    for (MoveEvent event : events)
+                        if (event.ply() <= start.ply())
+                            history.add(event.uci());
+                        else
+                            tail.add(event);
+                    ChessEntity from = withMoves(start.state(), history);
+                    return tail.isEmpty() ? GameCodec.expand(from)
+                            : rules.replay(from, tail.stream().mapToInt(MoveEvent::move).toArray(),
+                                    tail.getLast().createdAt());
+                });
+    }
+
+    private static ChessEntity withMoves(ChessEntity state, List<String> moves) {
+        return new ChessEntity(state.id(), state.fenBoard(), state.activeColor(), state.playerBotColor(),
+                state.castlingRights(), state.enPassantSquare(), state.halfMoveClock(), state.fullMoveNumber(),
+                state.zobristKey(), state.inCheck(), state.status(), moves, state.packedBoard(), null,
+                state.createdAt(), state.updatedAt(), state.version());
+    }
+
+    /* ===== escrita ===== */
+    /**
+     * Grava os lances de uma partida sem bloquear; {@code false} se algum desses plies já foi
+     * gravado com outro lance (outro lance chegou antes).
+     */
+    public Mono<Boolean> append(PendingMoves pending) {
+        List<MoveEvent> events = pending.events();
+        return reactiveTemplate.insertAll(events)
+                .then(Mono.just(true))
+                // o mesmo lance já gravado (pedido refeito) não é conflito
+                .onErrorResume(DuplicateKeyException.class, e -> alreadyStored(events))
+                .flatMap(stored -> stored ? insertSnapshots(pending).thenReturn(true) : Mono.just(false));
+    }
+
+    private Mono<Boolean> alreadyStored(List<MoveEvent> events) {
+        Map<String, Integer> moves = new HashMap<>();
+        events.forEach(event -> moves.put(event.id(), event.move()));
+        return reactiveTemplate.find(Query.query(Criteria.where("_id").in(moves.keySet())), MoveEvent.class)
+                .collectList()
+                .map(stored -> stored.size() == moves.size()
+                        && stored.stream().allMatch(event -> event.move() == moves.get(event.id())));
+    }
+
+    private Mono<Void> insertSnapshots(PendingMoves pending) {
+        if (pending.snapshots().isEmpty())
+            return Mono.empty();
+        return reactiveTemplate.insertAll(pending.snapshots().stream().map(GameSnapshot::of).toList())
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Snapshot not written for {}: {}", pending.next().id(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Um bulk insert de eventos e outro de snapshots. Devolve as partidas cujo ply já existia;
+     * os snapshots delas ficam de fora.
+     */
+    public Set<String> appendAll(List<PendingMoves> batch) {
+        List<MoveEvent> events = new ArrayList<>();
+        for (PendingMoves pending : batch)
+            events.addAll(pending.events());
+        if (events.isEmpty())
+            return Set.of();
+
+        Set<String> conflicts = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MoveEvent.class).insert(events).execute();
+        } catch (BulkOperationException e) {
+            Map<String, MoveEvent> duplicates = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY)
+                    throw e;
+                MoveEvent event = events.get(error.getIndex());
+                duplicates.put(event.id(), event);
+            }
+            // o mesmo lance já gravado (flush refeito) não é conflito
+            Query saved = Query.query(Criteria.where("_id").in(duplicates.keySet()));
+            for (MoveEvent stored : mongoTemplate.find(saved, MoveEvent.class))
+                if (stored.move() == duplicates.get(stored.id()).move())
+                    duplicates.remove(stored.id());
+            duplicates.values().forEach(event -> conflicts.add(event.gameId()));
+        }
+
+        List<GameSnapshot> snapshots = new ArrayList<>();
+        for (PendingMoves pending : batch)
+            if (!conflicts.contains(pending.next().id()))
+                pending.snapshots().forEach(state -> snapshots.add(GameSnapshot.of(state)));
+        if (!snapshots.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GameSnapshot.class).insert(snapshots)
+                        .execute();
+            } catch (BulkOperationException e) {
+                // snapshot repetido (flush refeito) ou perdido só deixa a leitura refazer mais lances
+                log.warn("{} snapshots not written: {}", e.getErrors().size(), e.getMessage());
+            }
+        }
+        return conflicts;
+    }
+}
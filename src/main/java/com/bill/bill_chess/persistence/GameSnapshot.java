@@ -0,0 +1,22 @@
+package com.bill.bill_chess.persistence;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Posição (compactada) da partida depois do ply, sem o histórico, que já está nos eventos;
+ * mesmo formato de chave do {@link MoveEvent}.
+ */
+@Document(collection = "game_snapshots")
+public record GameSnapshot(
+                @Id String id,
+                String gameId,
+                int ply,
+                ChessEntity state) {
+
+        public static GameSnapshot of(ChessEntity state) {
+                int ply = state.moves().size();
+                return new GameSnapshot(MoveEvent.key(state.id(), ply), state.id(), ply,
+                                GameCodec.compactBoard(state));
+        }
+}
@@ -0,0 +1,32 @@
+package com.bill.bill_chess.persistence;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Um lance do log append-only. O {@code _id} é {@code <partida>:<ply com 6 dígitos>}: dois
+ * nós gravando o mesmo ply batem na chave duplicada, e o índice do {@code _id} já ordena os
+ * lances de uma partida para a leitura por faixa.
+ */
+@Document(collection = "game_events")
+public record MoveEvent(
+                @Id String id,
+                String gameId,
+                int ply, // 1 = primeiro lance
+                int move, // 16 bits, ver GameCodec
+                Instant createdAt) {
+
+        public static String key(String gameId, int ply) {
+                return gameId + ":" + String.format("%06d", ply);
+        }
+
+        public static MoveEvent of(String gameId, int ply, String uci) {
+                return new MoveEvent(key(gameId, ply), gameId, ply, GameCodec.packMove(uci), Instant.now());
+        }
+
+        public String uci() {
+                return GameCodec.unpackMove(move);
+        }
+}
@@ -0,0 +1,42 @@
+package com.bill.bill_chess.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lances ainda não gravados de uma partida: o estado mais novo, o ply que o Mongo já tem e
+ * os estados que viram snapshot (um a cada {@code snapshotEvery} plies).
+ */
+public record PendingMoves(ChessEntity next, int fromPly, List<ChessEntity> snapshots) {
+
+    /** Um lance: {@code next} calculado a partir de {@code previous}. */
+    public static PendingMoves of(ChessEntity previous, ChessEntity next, int snapshotEvery) {
+        return new PendingMoves(previous, previous.moves().size(), List.of()).then(next, snapshotEvery);
+    }
+
+    /** Mais um lance por cima do que ainda não foi gravado. */
+    public PendingMoves then(ChessEntity later, int snapshotEvery) {
+        List<ChessEntity> withLater = snapshots;
+        if (snapshotEvery > 0 && later.moves().size() % snapshotEvery == 0) {
+            withLater = new ArrayList<>(snapshots);
+            withLater.add(later);
+        }
+        return new PendingMoves(later, fromPly, withLater);
+    }
+
+    /** O que sobra depois de {@code flushed} (um estado anterior deste) ter sido gravado. */
+    public PendingMoves after(PendingMoves flushed) {
+        int persisted = flushed.next().moves().size();
+        return new PendingMoves(next, persisted,
+                snapshots.stream().filter(s -> s.moves().size() > persisted).toList());
+    }
+
+    /** Um evento por lance depois de {@code fromPly}. */
+    public List<MoveEvent> events() {
+        List<String> moves = next.moves();
+        List<MoveEvent> events = new ArrayList<>(moves.size() - fromPly);
+        for (int ply = fromPly + 1; ply <= moves.size(); ply++)
+            events.add(MoveEvent.of(next.id(), ply, moves.get(ply - 1)));
+        return events;
+    }
+}
@@ -5,233 +5,249 @@ import com.bill.bill_chess.core.MoveEngine;
 import com.bill.bill_chess.exception.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import com.bill.bill_chess.config.PonderProperties;
 import com.bill.bill_chess.core.ChessMapper;
+import com.bill.bill_chess.core.GameRules;
+import com.bill.bill_chess.core.GameRules.AppliedMove;
 import com.bill.bill_chess.core.RuleSet;
-import com.bill.bill_chess.domain.enums.CastleRight;
-import com.bill.bill_chess.domain.enums.Color;
 import com.bill.bill_chess.domain.enums.GameStatus;
-import com.bill.bill_chess.domain.model.Board;
 import com.bill.bill_chess.domain.model.ChessGame;
 import com.bill.bill_chess.domain.model.Move;
 import com.bill.bill_chess.domain.model.Position;
+import com.bill.bill_chess.dto.AnalysisInfo;
+import com.bill.bill_chess.dto.CacheStatsDto;
+import com.bill.bill_chess.dto.CoalescingStatsDto;
 import com.bill.bill_chess.dto.GameStateDto;
+import com.bill.bill_chess.dto.LegalMoveMapDto;
 import com.bill.bill_chess.dto.LegalMovesDto;
 import com.bill.bill_chess.dto.MoveDto;
+import com.bill.bill_chess.persistence.ActiveGameStore;
 import com.bill.bill_chess.persistence.ChessEntity;
-import com.bill.bill_chess.persistence.ChessRepository;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.*;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ChessService {
 
-    private final ChessRepository chessRepository;
+    private final ActiveGameStore games;
+    private final GameExecutor gameExecutor;
     private final ChessMapper chessMapper;
+    private final GameRules gameRules;
     private final MoveEngine localEngine;
-    private final ExecutorService stockfishExecutor;
-
-    public ChessService(ChessRepository chessRepository,
+    private final HedgedMoveEngine stockfishEngine;
+    private final LegalMovesCache legalMovesCache;
+    private final JavaSearchEngine javaEngine;
+    private final EngineResultCache engineResultCache;
+    private final CoalescingMoveEngine coalescingEngine;
+    private final MoveEngine botEngine;
+    private final MovePonderer ponderer;
+    private final EngineAdmission admission;
+
+    public ChessService(ActiveGameStore games,
+            GameExecutor gameExecutor,
             ChessMapper chessMapper,
+            GameRules gameRules,
             MoveEngine localEngine,
-            ExecutorService stockfishExecutor) {
-        this.chessRepository = chessRepository;
+            HedgedMoveEngine stockfishEngine,
+            LegalMovesCache legalMovesCache,
+            JavaSearchEngine javaEngine,
+            EngineResultCache engineResultCache,
+            PonderProperties ponderProperties,
+            EngineAdmission admission) {
+        this.games = games;
+        this.gameExecutor = gameExecutor;
         this.chessMapper = chessMapper;
+        this.gameRules = gameRules;
         this.localEngine = localEngine;
-        this.stockfishExecutor = stockfishExecutor;
+        this.stockfishEngine = stockfishEngine;
+        this.legalMovesCache = legalMovesCache;
+        this.javaEngine = javaEngine;
+        this.engineResultCache = engineResultCache;
+        this.admission = admission;
+        // cache por posição primeiro; só os misses chegam ao single-flight, à fila e aos motores
+        Duration botDeadline = Duration.ofSeconds(GameConstants.BOT_TIMEOUT_SECONDS);
+        this.coalescingEngine = new CoalescingMoveEngine((fen, depth) -> admitted(depth, botDeadline, fen, depth));
+        this.botEngine = engineResultCache.wrap(coalescingEngine);
+        // sem o single-flight: o cancelamento do ponder precisa chegar ao motor
+        this.ponderer = new MovePonderer(engineResultCache.wrap((fen, depth) -> admitted(
+                EngineAdmission.BACKGROUND + depth, ponderProperties.getTtl(), fen, depth)), ponderProperties);
     }
 
     /* ---------- Criar nova partida ---------- */
-    @Transactional
     public GameStateDto createGame() {
         ChessEntity entity = ChessEntity.initial();
-        entity = chessRepository.save(entity);
-        return chessMapper.toGameStateDto(entity);
+        entity = games.create(entity);
+        return chessMapper.toGameStateDto(entity, legalTargets(entity));
     }
 
     /* ---------- Jogada ---------- */
-    @Transactional
-    public GameStateDto makeMove(String gameId, MoveDto dto) {
-        // 1) busca
-        ChessEntity entity = chessRepository.findById(gameId)
-                .orElseThrow(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG));
+    public Mono<GameStateDto> makeMove(String gameId, MoveDto dto) {
+        // 1) busca fora do shard: partida fria vem do Mongo sem segurar as outras partidas dele
+        return games.findAsync(gameId)
+                .switchIfEmpty(Mono.error(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG)))
+                // passos 2-6 na fila da partida: nenhum outro lance dela roda no meio
+                .flatMap(loaded -> gameExecutor.run(gameId, () -> {
+                    ChessEntity entity = games.latest(loaded);
+                    return save(entity, gameRules.applyMove(entity, dto));
+                }))
+                .map(applied -> afterSave(gameId, applied.entity(), applied.game()));
+    }
+
+    /** 6) salva só o delta; falha se outro lance (deste ou de outro nó) entrou depois da leitura. */
+    private Mono<AppliedMove> save(ChessEntity entity, AppliedMove applied) {
+        return games.appendMove(entity, applied.entity())
+                .flatMap(saved -> saved ? Mono.just(applied)
+                        : Mono.error(new ConcurrentMoveException(GameConstants.CONCURRENT_MOVE_MSG)));
+    }
+
+    private GameStateDto afterSave(String gameId, ChessEntity updated, ChessGame game) {
+        // 7) vez do bot: já começa a busca enquanto o cliente não pede /bot/move
+        if (game.getStatus() == GameStatus.IN_PROGRESS && updated.isTurnBot())
+            ponderer.start(gameId, updated.toFen());
+        // a posição nova já está em memória: aquece o cache sem novo toDomain
+        Map<String, List<String>> legal = legalMovesCache.get(updated, () -> legalMovesByFrom(game));
+        return chessMapper.toGameStateDto(updated, targetsByFrom(legal));
+    }
 
-        // 2) converte para objetos de domínio
-        ChessGame game = chessMapper.toDomain(entity);
-
-        // 3) validações
-        validateTurn(dto, game.getActiveColor());
-        log.debug("Turn validation passed");
-        log.debug("UCI: {}", dto.uci());
-
-        Move m = Move.fromUci(dto.uci());
-        Move move = Move.quiet(m.from(), m.to(), game.getBoard().pieceAt(m.from())
-                .orElseThrow(() -> new GameNotFoundException("Piece not found at source square")));
-        validateLegality(game.getBoard(), move, game.getActiveColor(), game.getCastleRights(), game.getEnPassant());
-        log.debug("Legality validation passed");
-
-        // 4) executa o lance
-        game.getBoard().doMove(move);
-        game.setCastleRights(updateCastlingRights(game.getCastleRights(), move));
-        game.setEnPassant(updateEnPassant(game.getBoard(), move));
-        game.setActiveColor(game.getActiveColor().opposite());
-        if (move.pieceMoved().isPawn()) {
-            game.setHalfMoveClock(0);
-        } else {
-            int half = move.captured().isPresent() ? 0 : entity.halfMoveClock() + 1;
-            game.setHalfMoveClock(half);
-        }
-        int full = game.getActiveColor().isWhite() ? entity.fullMoveNumber() + 1 : entity.fullMoveNumber();
-        game.setFullMoveNumber(full);
-        // 5) status final
-        GameStatus status = RuleSet.classify(game.getBoard(), game.getActiveColor(), game.getCastleRights(),
-                game.getEnPassant());
-        game.setStatus(status);
-
-        // 6) salva
-        ChessEntity updated = chessMapper.toEntity(game);
-        updated = chessRepository.save(updated);
-        return chessMapper.toGameStateDto(updated);
-    }
-
-    public GameStateDto makeHumanMove(String gameId, MoveDto dto) {
+    public Mono<GameStateDto> makeHumanMove(String gameId, MoveDto dto) {
         return makeMove(gameId, dto);
     }
 
-    /** using when the opponent is the BOT. */
-    @Transactional
-    public GameStateDto makeBotMove(String gameId, int depth) {
+    /**
+     * using when the opponent is the BOT. Fully reactive: no thread is held while the
+     * engine searches or while Mongo answers.
+     */
+    public Mono<GameStateDto> makeBotMove(String gameId, int depth) {
+        int searchDepth = depth <= 0 ? GameConstants.DEFAULT_DEPTH : depth;
         // 1) current state
-        ChessEntity entity = chessRepository.findById(gameId)
-                .orElseThrow(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG));
+        return games.findAsync(gameId)
+                .switchIfEmpty(Mono.error(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG)))
+                .flatMap(entity -> {
+                    // 2) only plays if it is the bot's turn
+                    if (!entity.isTurnBot())
+                        return Mono.error(new InvalidTurnException(GameConstants.NOT_BOT_TURN_MSG));
+
+                    // 3) asks the engine (or collects what was pondered during the human's turn)
+                    String fen = entity.toFen();
+                    return botMove(gameId, fen, searchDepth)
+                            // 4) reuses the move flow on the game's shard; the search stays outside it
+                            .flatMap(uci -> gameExecutor.run(gameId, () -> save(entity,
+                                    gameRules.applyMove(entity, new MoveDto(entity.playerBotColor(), uci)))))
+                            .map(applied -> afterSave(gameId, applied.entity(), applied.game()));
+                });
+    }
 
-        ChessGame game = chessMapper.toDomain(entity);
+    public LegalMovesDto getLegalMoves(String gameId, String square) {
+        Position position = Position.fromNotation(square);
+        ChessEntity entity = games.find(gameId)
+                .orElseThrow(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG));
+        Map<String, List<String>> byFrom = legalMovesCache.get(entity,
+                () -> legalMovesByFrom(chessMapper.toDomain(entity)));
+        return new LegalMovesDto(byFrom.getOrDefault(position.toNotation(), List.of()));
+    }
 
-        // 2) only plays if it is the bot's turn
-        if (game.getPlayerBotColor() != game.getActiveColor()) {
-            throw new InvalidTurnException(GameConstants.NOT_BOT_TURN_MSG);
-        }
+    /** Todos os destinos legais, por casa de origem, numa única chamada. */
+    public LegalMoveMapDto getAllLegalMoves(String gameId) {
+        ChessEntity entity = games.find(gameId)
+                .orElseThrow(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG));
+        return new LegalMoveMapDto(legalTargets(entity));
+    }
 
-        // 3) asks the engine
-        String uci = botMove(entity.toFen(), depth <= 0 ? GameConstants.DEFAULT_DEPTH : depth);
+    public CacheStatsDto getLegalMovesCacheStats() {
+        return legalMovesCache.stats();
+    }
 
-        // 4) reuses the existing flow
-        return makeMove(gameId, new MoveDto(game.getPlayerBotColor().fen(), uci));
+    public CoalescingStatsDto getBotMoveCoalescingStats() {
+        return coalescingEngine.stats();
     }
 
-    public LegalMovesDto getLegalMoves(String gameId, String square) {
-        Position position = Position.fromNotation(square);
-        ChessEntity entity = chessRepository.findById(gameId)
+    /** Análise incremental da posição atual; sem Stockfish, cai no resultado único do motor Java. */
+    public Flux<AnalysisInfo> analyze(String gameId, int depth) {
+        ChessEntity entity = games.find(gameId)
                 .orElseThrow(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG));
-        ChessGame game = chessMapper.toDomain(entity);
-        List<String> moves = RuleSet
-                .generateLegalInPosition(game.getBoard(), game.getActiveColor(), game.getCastleRights(),
-                        game.getEnPassant(), position)
-                .stream()
-                .map(Move::toUci).toList();
-        return new LegalMovesDto(moves);
+        String fen = entity.toFen();
+        int searchDepth = Math.clamp(depth, 1, GameConstants.MAX_ANALYSIS_DEPTH);
+        return localEngine.analyze(fen, searchDepth)
+                .onErrorResume(ChessEngineException.class,
+                        err -> javaEngine.analyze(fen, Math.min(searchDepth, javaEngine.maxDepth())));
+    }
+
+    public CacheStatsDto getEngineCacheStats() {
+        return engineResultCache.stats();
+    }
+
+    /** Partida como estava depois do ply, montada a partir do log de lances e do que ainda está em memória. */
+    public Mono<GameStateDto> getGameAt(String gameId, int ply) {
+        return games.findAt(gameId, ply)
+                .switchIfEmpty(Mono.error(() -> new GameNotFoundException(GameConstants.PLY_NOT_FOUND_MSG)))
+                .map(entity -> chessMapper.toGameStateDto(entity, legalTargets(entity)));
     }
 
     public GameStateDto getGame(String gameId) {
-        ChessEntity entity = chessRepository.findById(gameId)
+        ChessEntity entity = games.find(gameId)
                 .orElseThrow(() -> new GameNotFoundException(GameConstants.GAME_NOT_FOUND_MSG));
-        return chessMapper.toGameStateDto(entity);
+        return chessMapper.toGameStateDto(entity, legalTargets(entity));
     }
 
-    private void validateTurn(MoveDto dto, Color active) {
-        if (!dto.color().equalsIgnoreCase(active.fen()))
-            throw new InvalidTurnException(GameConstants.NOT_YOUR_TURN_MSG);
+    private Map<String, List<String>> legalTargets(ChessEntity entity) {
+        return targetsByFrom(legalMovesCache.get(entity, () -> legalMovesByFrom(chessMapper.toDomain(entity))));
     }
 
-    private void validateLegality(Board board, Move move, Color active,
-            Set<CastleRight> rights, Position enPassant) {
-        boolean legal = RuleSet.generateLegal(board, active, rights, enPassant)
+    /** UCI por origem -> casas de destino por origem (promoções viram um destino só). */
+    private static Map<String, List<String>> targetsByFrom(Map<String, List<String>> uciByFrom) {
+        Map<String, List<String>> targets = new HashMap<>(uciByFrom.size());
+        uciByFrom.forEach((from, ucis) -> targets.put(from,
+                ucis.stream().map(uci -> uci.substring(2, 4)).distinct().toList()));
+        return targets;
+    }
+
+    /** Todos os lances legais da posição, agrupados pela casa de origem. */
+    private Map<String, List<String>> legalMovesByFrom(ChessGame game) {
+        return RuleSet
+                .generateLegal(game.getBoard(), game.getActiveColor(), game.getCastleRights(), game.getEnPassant())
                 .stream()
-                .anyMatch(m -> m.equals(move));
-        log.debug("Checked legality: {} move={}", legal, move.toUci());
-        if (!legal)
-            throw new IllegalMoveException("Illegal move: " + move.toUci());
-    }
-
-    /* ---------- Atualiza direitos de roque ---------- */
-    private Set<CastleRight> updateCastlingRights(Set<CastleRight> current, Move move) {
-        // rei move → perde tudo daquela cor
-        if (move.pieceMoved().isKing()) {
-            current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_KINGSIDE
-                    : CastleRight.BLACK_KINGSIDE);
-            current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_QUEENSIDE
-                    : CastleRight.BLACK_QUEENSIDE);
-            return current;
-        }
-        // torre move → perde só o lado correspondente
-        if (move.pieceMoved().isRook()) {
-            Position from = move.from();
-            int rank = from.rank();
-            Color cor = move.pieceMoved().color();
-            if (from.file() == 7 && rank == (cor.isWhite() ? 1 : 8)) {
-                current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_KINGSIDE
-                        : CastleRight.BLACK_KINGSIDE);
-            }
-            if (from.file() == 0 && rank == (cor.isWhite() ? 1 : 8)) {
-                current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_QUEENSIDE
-                        : CastleRight.BLACK_QUEENSIDE);
-            }
-            return current;
-        }
-        // captura de torre no canto → também perde o lado
-        if (move.captured().isPresent() && move.captured().get().isRook()) {
-            Position to = move.to();
-            int rank = to.rank();
-            Color cor = move.captured().get().color();
-            if (to.file() == 7 && rank == (cor.isWhite() ? 1 : 8)) {
-                current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_KINGSIDE
-                        : CastleRight.BLACK_KINGSIDE);
-            }
-            if (to.file() == 0 && rank == (cor.isWhite() ? 1 : 8)) {
-                current.remove(move.pieceMoved().isWhite() ? CastleRight.WHITE_QUEENSIDE
-                        : CastleRight.BLACK_QUEENSIDE);
-            }
-        }
-        return current;
-    }
-
-    /* ---------- En-passant ---------- */
-    private Position updateEnPassant(Board board, Move move) {
-        // só peão que andou 2 casas gera EP
-        if (!move.pieceMoved().isPawn())
-            return null;
-        Position from = move.from();
-        Position to = move.to();
-        int dr = Math.abs(to.rank() - from.rank());
-        if (dr == 2) {
-            return Position.of((from.rank() + to.rank()) / 2, from.file());
-        }
-        return null;
-    }
-
-    private String botMove(String fen, int depth) {
-        try {
-            return stockfishExecutor
-                    .submit(() -> localEngine.bestMove(fen, depth)
-                            .timeout(Duration.ofSeconds(GameConstants.BOT_TIMEOUT_SECONDS))
-                            .doOnError(err -> log.error("Stockfish failed locally", err))
-                            .block()) // timeout já configurado no Mono
-                    .get(GameConstants.BOT_TIMEOUT_SECONDS, TimeUnit.SECONDS); // timeout total (executor + block)
-        } catch (TimeoutException tex) {
-            throw new ChessEngineException("Time limit exceeded for calculation", tex);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            throw new ChessEngineException("Interrupted", ie);
-        } catch (ExecutionException e) {
-            Throwable root = e.getCause();
-            log.error("Stockfish execution error", root);
-            throw new ChessEngineException(root.getMessage(), root);
-        }
+                .collect(Collectors.collectingAndThen(
+                        Collectors.groupingBy(m -> m.from().toNotation(),
+                                Collectors.mapping(Move::toUci, Collectors.toUnmodifiableList())),
+                        Map::copyOf));
+    }
+
+    /** Níveis baixos vão direto ao motor Java; se o Stockfish falhar, o motor Java responde. */
+    private Mono<String> engineMove(String fen, int depth) {
+        if (depth <= javaEngine.maxDepth())
+            return javaEngine.bestMove(fen, depth);
+        // com o hedge desligado é o pool local puro
+        return stockfishEngine.bestMove(fen, depth)
+                .onErrorResume(err -> {
+                    log.warn("Stockfish failed, falling back to Java engine: {}", err.getMessage());
+                    return javaEngine.bestMove(fen, Math.min(depth, javaEngine.maxDepth()));
+                });
+    }
+
+    /** Busca real passando pela fila de admissão; o prazo começa a contar na assinatura. */
+    private Mono<String> admitted(int priority, Duration deadline, String fen, int depth) {
+        return Mono.defer(() -> admission.submit(priority, System.nanoTime() + deadline.toNanos(),
+                () -> engineMove(fen, depth)));
+    }
+
+    private Mono<String> botMove(String gameId, String fen, int depth) {
+        Mono<String> search = ponderer.take(gameId, fen, depth)
+                .map(Mono::fromFuture)
+                .orElseGet(() -> botEngine.bestMove(fen, depth));
+        return search
+                .timeout(Duration.ofSeconds(GameConstants.BOT_TIMEOUT_SECONDS))
+                .onErrorMap(TimeoutException.class,
+                        tex -> new ChessEngineException("Time limit exceeded for calculation", tex))
+                .doOnError(err -> log.error("Bot search failed", err));
     }
 
 }
@@ -0,0 +1,50 @@
+package com.bill.bill_chess.service;
+
+import java.time.Duration;
+
+/**
+ * Disjuntor simples: {@code threshold} falhas seguidas abrem o circuito por {@code openFor};
+ * depois disso uma única chamada de teste decide se fecha de novo ou reabre.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int threshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    CircuitBreaker(int threshold, Duration openFor) {
+        this.threshold = Math.max(1, threshold);
+        this.openNanos = openFor.toNanos();
+    }
+
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true; // só a chamada de teste passa
+        }
+        return state == State.CLOSED;
+    }
+
+    synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= threshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bill.bill_chess.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.dto.CoalescingStatsDto;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Single-flight na frente de qualquer {@link MoveEngine}: pedidos simultâneos para a mesma
+ * posição e profundidade assinam o mesmo {@code Mono}. A entrada sai do mapa quando a busca
+ * termina (com sucesso ou erro) ou quando todos que esperavam por ela cancelam, então não
+ * funciona como cache.
+ */
+public class CoalescingMoveEngine implements MoveEngine {
+
+    record Key(String position, int depth) {
+    }
+
+    private final MoveEngine delegate;
+    private final ConcurrentMap<Key, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public CoalescingMoveEngine(MoveEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<String> bestMove(String fen, int depth) {
+        return Mono.defer(() -> {
+            requests.increment();
+            Key key = new Key(normalize(fen), depth);
+            boolean[] created = { false };
+            Mono<String> shared = inFlight.computeIfAbsent(key, k -> {
+                created[0] = true;
+                // replay + refCount: quem chega depois recebe o mesmo resultado; a busca só é
+                // cancelada quando o último interessado sai (timeout do bot, cliente desconectou)
+                return Mono.defer(() -> delegate.bestMove(fen, depth))
+                        // antes do sinal descer: quem recebe o lance já não vê a entrada no mapa
+                        .doOnTerminate(() -> inFlight.remove(k))
+                        .doOnCancel(() -> inFlight.remove(k))
+                        .flux()
+                        .replay(1)
+                        .refCount()
+                        .next();
+            });
+            if (!created[0])
+                coalesced.increment();
+            return shared;
+        });
+    }
+
+    public CoalescingStatsDto stats() {
+        return new CoalescingStatsDto(requests.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    /** Só os 4 primeiros campos decidem o lance; relógios de meio-lance e número do lance ficam de fora. */
+    static String normalize(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        return String.join(" ", Arrays.copyOf(fields, Math.min(fields.length, 4)));
+    }
+}
@@ -0,0 +1,135 @@
+package com.bill.bill_chess.service;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.config.EngineAdmissionProperties;
+import com.bill.bill_chess.exception.ChessEngineException;
+import com.bill.bill_chess.exception.EngineOverloadedException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Controle de admissão das buscas: no máximo {@code maxConcurrent} rodando e uma fila
+ * limitada por prioridade (menor valor primeiro: profundidade pedida, ponder atrás).
+ * Fila cheia falha na hora com Retry-After; quem sai da fila sem tempo para terminar
+ * antes do próprio prazo é descartado sem ocupar o motor.
+ */
+@Slf4j
+@Component
+public class EngineAdmission {
+
+    /** Somado à prioridade de trabalho especulativo (ponder): só roda com folga. */
+    public static final int BACKGROUND = 1_000;
+
+    /** {@code cancel}: tira da fila enquanto espera, cancela a busca depois que ela começa. */
+    private record Ticket(int priority, long seq, long deadlineNanos, MonoSink<Object> sink,
+            Supplier<Mono<?>> work, Disposable.Swap cancel) {
+    }
+
+    private final int maxConcurrent;
+    private final int queueDepth;
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+            Comparator.comparingInt(Ticket::priority).thenComparingLong(Ticket::seq));
+    private int running;
+    private long seq;
+    // média móvel do tempo de serviço, em nanos
+    private volatile long serviceNanos;
+
+    public EngineAdmission(EngineAdmissionProperties props) {
+        this.maxConcurrent = Math.max(1, props.getMaxConcurrent());
+        this.queueDepth = Math.max(0, props.getQueueDepth());
+        this.serviceNanos = props.getInitialServiceTime().toNanos();
+    }
+
+    /**
+     * Executa {@code work} quando houver vaga. {@code deadlineNanos} é absoluto
+     * ({@link System#nanoTime()}); a assinatura cancelada enquanto na fila libera a posição.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> submit(int priority, long deadlineNanos, Supplier<Mono<T>> work) {
+        return Mono.<Object>create(sink -> {
+            Ticket ticket;
+            synchronized (this) {
+                ticket = new Ticket(priority, seq++, deadlineNanos, sink, (Supplier<Mono<?>>) (Supplier<?>) work,
+                        Disposables.swap());
+                // um único onCancel por sink: um segundo seria descartado na hora
+                sink.onCancel(ticket.cancel());
+                if (running < maxConcurrent) {
+                    running++;
+                } else if (queue.size() >= queueDepth) {
+                    sink.error(new EngineOverloadedException("Engine queue is full", retryAfterSeconds()));
+                    return;
+                } else {
+                    queue.add(ticket);
+                    ticket.cancel().replace(() -> dequeue(ticket));
+                    return;
+                }
+            }
+            start(ticket);
+        }).map(value -> (T) value);
+    }
+
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    public synchronized int running() {
+        return running;
+    }
+
+    private void start(Ticket ticket) {
+        long started = System.nanoTime();
+        Mono<?> work;
+        try {
+            work = ticket.work().get();
+        } catch (RuntimeException e) {
+            ticket.sink().error(e);
+            finished(0);
+            return;
+        }
+        // a vaga volta antes do resultado descer: quem recebe o lance já vê a fila andar
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true))
+                finished(System.nanoTime() - started);
+        };
+        ticket.cancel().replace(work
+                .doOnTerminate(release)
+                .doOnCancel(release)
+                .subscribe(ticket.sink()::success, ticket.sink()::error, ticket.sink()::success));
+    }
+
+    private void finished(long elapsedNanos) {
+        if (elapsedNanos > 0)
+            serviceNanos += (elapsedNanos - serviceNanos) / 8;
+        Ticket next;
+        synchronized (this) {
+            long now = System.nanoTime();
+            while ((next = queue.poll()) != null && now + serviceNanos > next.deadlineNanos())
+                // prazo já perdido: responde agora em vez de gastar o motor
+                next.sink().error(new ChessEngineException("Time limit exceeded while queued"));
+            if (next == null)
+                running--;
+        }
+        if (next != null)
+            start(next);
+    }
+
+    private synchronized void dequeue(Ticket ticket) {
+        queue.remove(ticket);
+    }
+
+    private long retryAfterSeconds() {
+        long waitNanos = (queue.size() + 1L) * serviceNanos / maxConcurrent;
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+}
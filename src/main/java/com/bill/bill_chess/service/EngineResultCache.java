@@ -0,0 +1,93 @@
+package com.bill.bill_chess.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.config.StockfishProperties;
+import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.dto.CacheStatsDto;
+import com.bill.bill_chess.persistence.EvalStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Melhor lance por posição, compartilhado entre os motores. A chave é o hash Zobrist
+ * (peças, lado, roque e en passant), então transposições em lances diferentes acertam.
+ * Guarda o resultado mais profundo visto: um pedido de profundidade d é atendido por
+ * qualquer entrada buscada a d ou mais. Abaixo do Caffeine fica o {@link EvalStore} em disco:
+ * um miss em memória consulta o arquivo, e todo resultado novo é gravado lá de forma assíncrona.
+ */
+@Component
+public class EngineResultCache {
+
+    record Entry(String move, int depth) {
+    }
+
+    private final Cache<Long, Entry> cache;
+    private final EvalStore store;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EngineResultCache(StockfishProperties props, EvalStore store) {
+        this.store = store;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(props.getCache().getTtl())
+                .maximumSize(props.getCache().getMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    /** Decora um motor: acerto responde na hora, erro de busca não é guardado. */
+    public MoveEngine wrap(MoveEngine delegate) {
+        return (fen, depth) -> Mono.defer(() -> {
+            long key = BitboardPosition.fromFen(fen).key();
+            String move = lookup(key, depth);
+            if (move != null)
+                return Mono.just(move);
+            return delegate.bestMove(fen, depth)
+                    .doOnNext(result -> store(key, depth, result));
+        });
+    }
+
+    String lookup(long key, int depth) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            // depois de um restart o Caffeine está vazio, mas o arquivo não
+            EvalStore.Hit hit = store.find(key);
+            if (hit != null) {
+                entry = new Entry(hit.move(), hit.depth());
+                cache.put(key, entry);
+            }
+        }
+        if (entry != null && entry.depth() >= depth) {
+            hits.increment();
+            return entry.move();
+        }
+        misses.increment();
+        return null;
+    }
+
+    void store(long key, int depth, String move) {
+        // nunca troca uma entrada mais profunda por uma mais rasa
+        Entry kept = cache.asMap().merge(key, new Entry(move, depth),
+                (old, fresh) -> fresh.depth() >= old.depth() ? fresh : old);
+        if (kept.depth() == depth && kept.move().equals(move))
+            store.appendAsync(key, depth, move);
+    }
+
+    public CacheStatsDto stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new CacheStatsDto(
+                hitCount,
+                missCount,
+                total == 0 ? 1.0 : (double) hitCount / total,
+                cache.stats().evictionCount(),
+                cache.estimatedSize());
+    }
+}
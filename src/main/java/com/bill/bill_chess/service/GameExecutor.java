@@ -0,0 +1,51 @@
+package com.bill.bill_chess.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.config.GameExecutorProperties;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Escritor único por partida: o id escolhe uma de N filas de uma thread só, então os lances
+ * de uma partida rodam em ordem e sem lock, e partidas diferentes usam todos os núcleos.
+ * Só a parte curta (ler, aplicar, registrar) entra na fila; a busca do motor fica fora, e o
+ * I/O que a tarefa devolve como {@link Mono} também: a thread da fila não espera o Mongo.
+ */
+@Component
+public class GameExecutor {
+
+    private final ExecutorService[] shards;
+    private final Scheduler[] schedulers;
+
+    public GameExecutor(GameExecutorProperties props) {
+        this.shards = new ExecutorService[Math.max(1, props.getShards())];
+        this.schedulers = new Scheduler[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("game-shard-" + i).daemon(true).factory());
+            schedulers[i] = Schedulers.fromExecutorService(shards[i]);
+        }
+    }
+
+    /**
+     * Monta e assina a tarefa na fila da partida: tudo que ela faz de forma síncrona roda em
+     * ordem com os outros lances da partida; o que vier depois (I/O) chega em outra thread.
+     */
+    public <T> Mono<T> run(String gameId, Supplier<Mono<T>> task) {
+        return Mono.defer(task).subscribeOn(schedulers[Math.floorMod(gameId.hashCode(), shards.length)]);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards)
+            shard.shutdown();
+    }
+}
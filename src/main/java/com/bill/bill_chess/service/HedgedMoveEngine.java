@@ -0,0 +1,105 @@
+package com.bill.bill_chess.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.bill.bill_chess.config.StockfishProperties;
+import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.exception.ChessEngineException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Stockfish remoto com hedge no pool local: se o remoto não responder dentro do p95 das
+ * latências recentes (ou falhar antes), o local começa também e vale o primeiro lance.
+ * Falhas seguidas do remoto abrem o disjuntor e o local passa a responder sozinho.
+ */
+@Slf4j
+@Service
+public class HedgedMoveEngine implements MoveEngine {
+
+    private static final int SAMPLES = 128;
+    private static final int MIN_SAMPLES = 20;
+
+    private final MoveEngine remote;
+    private final MoveEngine local;
+    private final StockfishProperties.Hedge props;
+    private final CircuitBreaker breaker;
+    // latências do remoto (nanos), em anel
+    private final long[] latencies = new long[SAMPLES];
+    private int sampleCount;
+    private int next;
+
+    @Autowired
+    public HedgedMoveEngine(StockfishService remote, LocalStockfishService local, StockfishProperties props) {
+        this((MoveEngine) remote, local, props.getHedge());
+    }
+
+    public HedgedMoveEngine(MoveEngine remote, MoveEngine local, StockfishProperties.Hedge props) {
+        this.remote = remote;
+        this.local = local;
+        this.props = props;
+        this.breaker = new CircuitBreaker(props.getFailureThreshold(), props.getOpenDuration());
+    }
+
+    @Override
+    public Mono<String> bestMove(String fen, int depth) {
+        if (!props.isEnabled() || !breaker.allowRequest())
+            return local.bestMove(fen, depth);
+
+        Sinks.Empty<Void> remoteFailed = Sinks.empty();
+        // cache(): o hedge vencer não cancela o remoto; latência e falha continuam contando
+        Mono<String> remoteCall = Mono.defer(() -> {
+            long start = System.nanoTime();
+            return remote.bestMove(fen, depth)
+                    // 200 sem corpo: sem isso a chamada de teste nunca decide e o disjuntor fica meio aberto
+                    .switchIfEmpty(Mono.error(() -> new ChessEngineException("Stockfish remoto respondeu sem lance")))
+                    .doOnNext(move -> {
+                        record(System.nanoTime() - start);
+                        breaker.onSuccess();
+                    });
+        })
+                .doOnError(err -> {
+                    if (!(err instanceof IllegalArgumentException))
+                        breaker.onFailure();
+                    log.warn("Stockfish remoto falhou: {}", err.getMessage());
+                    remoteFailed.tryEmitEmpty();
+                })
+                .cache();
+        Mono<String> hedge = Mono.firstWithSignal(Mono.delay(hedgeDelay()).then(), remoteFailed.asMono())
+                .then(Mono.defer(() -> local.bestMove(fen, depth)));
+        return Mono.firstWithValue(remoteCall, hedge);
+    }
+
+    /** p95 das últimas respostas do remoto, com piso em {@code minDelay}. */
+    Duration hedgeDelay() {
+        long[] window;
+        synchronized (latencies) {
+            if (sampleCount < MIN_SAMPLES)
+                return props.getInitialDelay();
+            window = Arrays.copyOf(latencies, sampleCount);
+        }
+        Arrays.sort(window);
+        long p95 = window[(int) Math.ceil(window.length * 0.95) - 1];
+        return Duration.ofNanos(Math.max(p95, props.getMinDelay().toNanos()));
+    }
+
+    /** CLOSED, OPEN ou HALF_OPEN. */
+    public String breakerState() {
+        return breaker.state().name();
+    }
+
+    private void record(long nanos) {
+        synchronized (latencies) {
+            latencies[next] = nanos;
+            next = (next + 1) % SAMPLES;
+            if (sampleCount < SAMPLES)
+                sampleCount++;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bill.bill_chess.service;
+
+import com.bill.bill_chess.config.JavaEngineProperties;
+import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.PackedMove;
+import com.bill.bill_chess.core.search.LazySmp;
+import com.bill.bill_chess.core.search.SearchResult;
+import com.bill.bill_chess.core.search.TranspositionTable;
+import com.bill.bill_chess.exception.ChessEngineException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Motor em Java puro sobre o {@code RuleSet}: atende níveis baixos sem processo externo
+ * e serve de fallback quando o Stockfish não está disponível.
+ */
+@Slf4j
+@Service
+public class JavaSearchEngine implements MoveEngine {
+
+    private final JavaEngineProperties props;
+    // uma TT para todas as buscas; Lazy SMP põe helpers sobre ela nas profundidades altas
+    private final LazySmp smp;
+
+    public JavaSearchEngine(JavaEngineProperties props) {
+        this.props = props;
+        TranspositionTable tt = new TranspositionTable(props.getHash().getSizeMb());
+        this.smp = new LazySmp(tt, props.getSmp().getMaxThreads() - 1);
+    }
+
+    @Override
+    public Mono<String> bestMove(String fen, int depth) {
+        return bestMove(fen, depth, props.getSmp().threadsFor(depth));
+    }
+
+    /** Threads explícitas para esta busca, limitadas a {@code smp.max-threads}. */
+    public Mono<String> bestMove(String fen, int depth, int threads) {
+        int clamped = Math.clamp(threads, 1, props.getSmp().getMaxThreads());
+        return Mono.defer(() -> {
+            // cancelar a assinatura (ponder descartado, lance do bot expirado) para as threads da busca
+            AtomicBoolean abort = new AtomicBoolean();
+            return Mono.fromCallable(() -> {
+                SearchResult result = smp.search(BitboardPosition.fromFen(fen), depth, props.getMoveTime(), clamped,
+                        abort);
+                if (result.bestMove() == PackedMove.NONE)
+                    throw new ChessEngineException("Nenhum lance legal para fen=" + fen);
+                log.debug("Java engine fen={} depth={} threads={} score={} nodes={} em {}ms", fen, result.depth(),
+                        clamped, result.score(), result.nodes(), result.elapsedMillis());
+                return PackedMove.toUci(result.bestMove());
+            })
+                    .doOnCancel(() -> abort.set(true))
+                    .subscribeOn(Schedulers.boundedElastic());
+        });
+    }
+
+    public int maxDepth() {
+        return props.getMaxDepth();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        smp.shutdown();
+    }
+}
@@ -0,0 +1,53 @@
+package com.bill.bill_chess.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.bill.bill_chess.config.LegalMovesCacheProperties;
+import com.bill.bill_chess.dto.CacheStatsDto;
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Lances legais por posição, agrupados pela casa de origem (UCI).
+ * A chave vem da própria entidade (hash Zobrist + roque + en passant), então um acerto
+ * não precisa de {@code toDomain} nem de {@code RuleSet}.
+ */
+@Component
+public class LegalMovesCache {
+
+    record Key(long zobristKey, String castlingRights, String enPassantSquare) {
+    }
+
+    private final Cache<Key, Map<String, List<String>>> cache;
+
+    public LegalMovesCache(LegalMovesCacheProperties props) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(props.getMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    public Map<String, List<String>> get(ChessEntity entity, Supplier<Map<String, List<String>>> loader) {
+        // documentos antigos não têm hash persistido
+        if (entity.zobristKey() == 0L)
+            return loader.get();
+        Key key = new Key(entity.zobristKey(), entity.castlingRights(), entity.enPassantSquare());
+        return cache.get(key, k -> loader.get());
+    }
+
+    public CacheStatsDto stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDto(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                cache.estimatedSize());
+    }
+}
@@ -2,86 +2,207 @@ package com.bill.bill_chess.service; // ou seu package
 
 import com.bill.bill_chess.config.LocalStockfishProps; // ajuste o import
 import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.dto.AnalysisInfo;
 import com.bill.bill_chess.exception.ChessEngineException;
 
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
-import java.io.*;
-import java.time.Duration;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Pool de processos Stockfish: cada busca faz checkout de um worker exclusivo,
+ * então buscas simultâneas não disputam o mesmo pipe.
+ */
 @Slf4j
 @Primary
 @Service
 public class LocalStockfishService implements MoveEngine {
 
     private final LocalStockfishProps props;
-    private final Process process;
-    private final BufferedReader reader;
-    private final OutputStreamWriter writer;
+    private final BlockingQueue<UciWorker> idle;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final boolean available;
+    private volatile boolean closed;
 
     /* ====== 1) INJEÇÃO DA PROPRIEDADE ====== */
-    public LocalStockfishService(LocalStockfishProps props) throws IOException {
+    public LocalStockfishService(LocalStockfishProps props) {
         this.props = props;
 
-        ProcessBuilder pb = new ProcessBuilder(props.getExe()); // agora vindo do .properties
-        pb.redirectErrorStream(true);
-        this.process = pb.start();
-
-        this.reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        this.writer = new OutputStreamWriter(process.getOutputStream());
-
-        handshake();
+        int size = Math.max(1, props.getPoolSize());
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            try {
+                idle.add(UciWorker.start(i, props.getExe()));
+            } catch (IOException | RuntimeException e) {
+                // sem binário a aplicação sobe mesmo assim; o ChessService cai no motor Java
+                log.warn("Stockfish local indisponível em {}: {}", props.getExe(), e.getMessage());
+                break;
+            }
+        }
+        this.available = !idle.isEmpty();
+        if (available)
+            log.info("Stockfish local inicializado: {} processos com executável {}", idle.size(), props.getExe());
     }
 
-    private void handshake() throws IOException {
-        send("uci");
-        waitFor("uciok");
-        send("isready");
-        waitFor("readyok");
-        log.info("Stockfish local inicializado com executável: {}", props.getExe());
+    @Override
+    public Mono<String> bestMove(String fen, int depth) {
+        if (!available)
+            return Mono.error(new ChessEngineException("Stockfish local indisponível"));
+        return Mono.defer(() -> {
+            AtomicReference<UciWorker> busy = new AtomicReference<>();
+            return Mono.fromCallable(() -> {
+                UciWorker worker = checkout();
+                busy.set(worker);
+                try {
+                    return worker.bestMove(fen, depth);
+                } finally {
+                    busy.set(null);
+                    release(worker);
+                }
+            })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    // timeout: manda "stop", o bestmove parcial chega e o worker volta ao pool
+                    .doOnCancel(() -> {
+                        UciWorker worker = busy.get();
+                        if (worker != null)
+                            worker.stop();
+                    });
+        })
+                .timeout(props.getTimeout());
     }
 
+    /**
+     * Análise em streaming: cada linha {@code info ... score ... pv} vira um {@link AnalysisInfo}.
+     * Cancelar a assinatura manda "stop"; o worker só volta ao pool depois do bestmove.
+     */
     @Override
-    public Mono<String> bestMove(String fen, int depth) {
-        return Mono.fromCallable(() -> {
-            send("position fen " + fen);
-            send("go depth " + depth);
+    public Flux<AnalysisInfo> analyze(String fen, int depth) {
+        if (!available)
+            return Flux.error(new ChessEngineException("Stockfish local indisponível"));
+        return Flux.<AnalysisInfo>create(sink -> {
+            UciWorker worker;
+            try {
+                worker = checkout();
+            } catch (Exception e) {
+                sink.error(e);
+                return;
+            }
+            sink.onCancel(worker::stop);
+            try {
+                worker.search(fen, depth, line -> {
+                    AnalysisInfo info = parseInfo(line);
+                    if (info != null)
+                        sink.next(info);
+                });
+                sink.complete();
+            } catch (Exception e) {
+                sink.error(e);
+            } finally {
+                release(worker);
+            }
+        })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("bestmove")) {
-                    return line.split(" ")[1];
+    /** {@code null} para linhas sem score/pv (currmove, string, hashfull...). */
+    static AnalysisInfo parseInfo(String line) {
+        String[] tokens = line.split(" ");
+        int depth = -1;
+        Integer cp = null;
+        Integer mate = null;
+        long nodes = 0;
+        List<String> pv = List.of();
+        for (int i = 1; i < tokens.length - 1; i++) {
+            switch (tokens[i]) {
+                case "depth" -> depth = Integer.parseInt(tokens[++i]);
+                case "nodes" -> nodes = Long.parseLong(tokens[++i]);
+                case "score" -> {
+                    String kind = tokens[++i];
+                    int value = Integer.parseInt(tokens[++i]);
+                    if (kind.equals("mate"))
+                        mate = value;
+                    else
+                        cp = value;
+                }
+                case "pv" -> {
+                    pv = List.of(Arrays.copyOfRange(tokens, i + 1, tokens.length));
+                    i = tokens.length;
+                }
+                default -> {
+                    // seldepth, time, nps, multipv, lowerbound...: fora do payload
                 }
             }
-            throw new ChessEngineException("Nenhum bestmove recebido");
-        })
-                .subscribeOn(Schedulers.boundedElastic())
-                .timeout(Duration.ofSeconds(10));
+        }
+        if (depth < 0 || (cp == null && mate == null) || pv.isEmpty())
+            return null;
+        return new AnalysisInfo(depth, cp, mate, nodes, pv);
     }
 
-    private void send(String cmd) throws IOException {
-        writer.write(cmd + "\n");
-        writer.flush();
+    /* ================== Pool ================== */
+    private UciWorker checkout() throws IOException, InterruptedException {
+        if (waiting.incrementAndGet() > props.getMaxWaiting()) {
+            waiting.decrementAndGet();
+            throw new ChessEngineException("Fila do Stockfish cheia");
+        }
+        UciWorker worker;
+        try {
+            worker = idle.poll(props.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (worker == null)
+            throw new ChessEngineException("Nenhum Stockfish livre em " + props.getAcquireTimeout());
+
+        try {
+            if (!worker.isHealthy())
+                worker = respawn(worker);
+            worker.reset();
+            return worker;
+        } catch (IOException | RuntimeException e) {
+            idle.offer(worker); // volta quebrado; o próximo checkout tenta reiniciar
+            throw e;
+        }
     }
 
-    private void waitFor(String token) throws IOException {
-        String line;
-        while ((line = reader.readLine()) != null) {
-            if (line.contains(token))
-                return;
+    private void release(UciWorker worker) {
+        if (closed) {
+            worker.close();
+            return;
+        }
+        if (!worker.isHealthy()) {
+            log.warn("Stockfish #{} caiu; reiniciando", worker.id());
+            try {
+                worker = respawn(worker);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Falha ao reiniciar Stockfish #{}: {}", worker.id(), e.getMessage());
+            }
         }
+        idle.offer(worker);
+    }
+
+    private UciWorker respawn(UciWorker dead) throws IOException {
+        dead.close();
+        return UciWorker.start(dead.id(), props.getExe());
     }
 
     @PreDestroy
-    public void destroy() throws IOException {
-        send("quit");
-        process.destroy();
-        reader.close();
-        writer.close();
+    public void destroy() {
+        closed = true;
+        UciWorker worker;
+        while ((worker = idle.poll()) != null)
+            worker.close();
     }
-}
\ No newline at end of file
+}
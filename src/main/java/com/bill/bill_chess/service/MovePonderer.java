@@ -0,0 +1,82 @@
+package com.bill.bill_chess.service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import com.bill.bill_chess.config.PonderProperties;
+import com.bill.bill_chess.core.GameConstants;
+import com.bill.bill_chess.core.MoveEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Busca a resposta do bot enquanto o humano pensa. Uma busca pendente por partida,
+ * cancelável: é descartada se a posição ou a profundidade pedida não baterem,
+ * se outra a substituir ou se ninguém buscar o resultado dentro do TTL.
+ */
+@Slf4j
+public class MovePonderer {
+
+    record Pending(String position, int depth, CompletableFuture<String> result) {
+    }
+
+    private final MoveEngine engine;
+    private final boolean enabled;
+    private final Cache<String, Pending> pending;
+    // profundidade do último /bot/move de cada partida: é a que será ponderada
+    private final Cache<String, Integer> depths;
+
+    public MovePonderer(MoveEngine engine, PonderProperties props) {
+        this.engine = engine;
+        this.enabled = props.isEnabled();
+        this.pending = Caffeine.newBuilder()
+                .expireAfterWrite(props.getTtl())
+                .maximumSize(props.getMaxGames())
+                .<String, Pending>removalListener((gameId, ponder, cause) -> {
+                    if (ponder != null && cause != RemovalCause.EXPLICIT)
+                        ponder.result().cancel(true);
+                })
+                .build();
+        this.depths = Caffeine.newBuilder()
+                .expireAfterAccess(props.getTtl().multipliedBy(10))
+                .maximumSize(props.getMaxGames() * 10)
+                .build();
+    }
+
+    /** Começa a pensar na posição em que o bot vai jogar. */
+    public void start(String gameId, String fen) {
+        if (!enabled)
+            return;
+        int depth = depths.asMap().getOrDefault(gameId, GameConstants.DEFAULT_DEPTH);
+        // toFuture(): cancelar o future cancela a assinatura, e o pool manda "stop" ao motor
+        CompletableFuture<String> result = engine.bestMove(fen, depth).toFuture();
+        pending.put(gameId, new Pending(CoalescingMoveEngine.normalize(fen), depth, result));
+        log.debug("Ponder iniciado game={} depth={}", gameId, depth);
+    }
+
+    /**
+     * Entrega a busca pendente se ela cobre esta posição a esta profundidade (pronta ou
+     * ainda rodando). Em qualquer caso a entrada é consumida.
+     */
+    public Optional<CompletableFuture<String>> take(String gameId, String fen, int depth) {
+        depths.put(gameId, depth);
+        Pending ponder = pending.asMap().remove(gameId);
+        if (ponder == null)
+            return Optional.empty();
+        if (!ponder.position().equals(CoalescingMoveEngine.normalize(fen)) || ponder.depth() < depth
+                || ponder.result().isCompletedExceptionally()) {
+            ponder.result().cancel(true);
+            return Optional.empty();
+        }
+        return Optional.of(ponder.result());
+    }
+
+    public void cancel(String gameId) {
+        Pending ponder = pending.asMap().remove(gameId);
+        if (ponder != null)
+            ponder.result().cancel(true);
+    }
+}
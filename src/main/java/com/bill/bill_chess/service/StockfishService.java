@@ -4,8 +4,6 @@ import com.bill.bill_chess.core.ChessValidation;
 import com.bill.bill_chess.core.MoveEngine;
 import com.bill.bill_chess.config.StockfishProperties;
 import com.bill.bill_chess.exception.ChessEngineException;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
@@ -14,15 +12,19 @@ import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 public class StockfishService implements MoveEngine {
 
+    private static final Pattern BEST_MOVE = Pattern.compile("bestmove\\s+([a-h][1-8][a-h][1-8][qrbn]?)");
+
     private final WebClient webClient;
     private final StockfishProperties props;
-    private final Cache<String, String> cache;
 
+    // o cache por posição fica no ChessService, um ponto só para todos os motores
     public StockfishService(WebClient.Builder builder,
                             StockfishProperties props) {
         this.props = props;
@@ -34,27 +36,13 @@ public class StockfishService implements MoveEngine {
                             return Mono.just(req);
                         }))
                 .build();
-
-        this.cache = Caffeine.newBuilder()
-                .expireAfterWrite(props.getCache().getTtl())
-                .maximumSize(props.getCache().getMaxSize())
-                .recordStats()
-                .build();
     }
 
     @Override
     public Mono<String> bestMove(String fen, int depth) {
         validate(fen, depth);
 
-        String key = fen + "|" + depth;
-        String cached = cache.getIfPresent(key);
-        if (cached != null) {
-            log.debug("Cache hit para key={}", key);
-            return Mono.just(cached);
-        }
-
         return callRemote(fen, depth)
-                .doOnNext(move -> cache.put(key, move))
                 .doOnError(ex -> log.error("Stockfish falhou para fen={}, depth={}", fen, depth, ex));
     }
 
@@ -69,12 +57,21 @@ public class StockfishService implements MoveEngine {
                         .build())
                 .retrieve()
                 .bodyToMono(String.class)
+                .map(StockfishService::parseBestMove)
                 .timeout(props.getTimeout())
                 .retryWhen(Retry.backoff(2, Duration.ofMillis(500)))
                 .doOnError(err -> err.printStackTrace())  // log temporário
                 .onErrorMap(ex -> new ChessEngineException("Falha ao obter movimento", ex));
     }
 
+    /** A API devolve JSON com "bestmove e2e4 ponder e7e5" em algum campo; só o lance interessa. */
+    public static String parseBestMove(String body) {
+        Matcher matcher = BEST_MOVE.matcher(body);
+        if (!matcher.find())
+            throw new ChessEngineException("Resposta sem bestmove: " + body);
+        return matcher.group(1);
+    }
+
     private void validate(String fen, int depth) {
         if (depth <= 0 || depth > 20)
             throw new IllegalArgumentException("Profundidade deve estar entre 1 e 20");
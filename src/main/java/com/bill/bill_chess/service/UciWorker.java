@@ -0,0 +1,134 @@
+package com.bill.bill_chess.service;
+
+import com.bill.bill_chess.exception.ChessEngineException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.function.Consumer;
+
+/**
+ * Um processo Stockfish falando UCI. Não é thread-safe: só quem fez checkout no
+ * {@link LocalStockfishService} usa, exceto {@link #stop()}, que pode vir de outra thread.
+ */
+class UciWorker {
+
+    private final int id;
+    private final Process process;
+    private final BufferedReader reader;
+    private final OutputStreamWriter writer;
+    private volatile boolean searching;
+    private volatile boolean broken;
+
+    private UciWorker(int id, Process process) {
+        this.id = id;
+        this.process = process;
+        this.reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        this.writer = new OutputStreamWriter(process.getOutputStream());
+    }
+
+    static UciWorker start(int id, String exe) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(exe);
+        pb.redirectErrorStream(true);
+        UciWorker worker = new UciWorker(id, pb.start());
+        try {
+            worker.send("uci");
+            worker.waitFor("uciok");
+            worker.send("isready");
+            worker.waitFor("readyok");
+        } catch (IOException | RuntimeException e) {
+            worker.close();
+            throw e;
+        }
+        return worker;
+    }
+
+    int id() {
+        return id;
+    }
+
+    boolean isHealthy() {
+        return !broken && process.isAlive();
+    }
+
+    /** Zera hash e histórico do motor entre pedidos de partidas diferentes. */
+    void reset() throws IOException {
+        send("ucinewgame");
+        send("isready");
+        waitFor("readyok");
+    }
+
+    String bestMove(String fen, int depth) throws IOException {
+        return search(fen, depth, line -> {
+        });
+    }
+
+    /** Busca até o bestmove repassando cada linha {@code info} recebida no caminho. */
+    String search(String fen, int depth, Consumer<String> info) throws IOException {
+        try {
+            synchronized (this) {
+                send("position fen " + fen);
+                send("go depth " + depth);
+                searching = true;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("bestmove"))
+                    return line.split(" ")[1];
+                if (line.startsWith("info "))
+                    info.accept(line);
+            }
+            broken = true;
+            throw new ChessEngineException("Stockfish #" + id + " encerrou sem bestmove");
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        } finally {
+            synchronized (this) {
+                searching = false;
+            }
+        }
+    }
+
+    /** Interrompe a busca corrente; o motor responde bestmove e o worker volta ao pool. */
+    synchronized void stop() {
+        if (!searching)
+            return;
+        try {
+            send("stop");
+        } catch (IOException e) {
+            broken = true;
+        }
+    }
+
+    void close() {
+        try {
+            send("quit");
+        } catch (IOException ignored) {
+            // processo já morto
+        }
+        process.destroy();
+        try {
+            reader.close();
+            writer.close();
+        } catch (IOException ignored) {
+            // nada a liberar
+        }
+    }
+
+    private void send(String cmd) throws IOException {
+        writer.write(cmd + "\n");
+        writer.flush();
+    }
+
+    private void waitFor(String token) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.contains(token))
+                return;
+        }
+        broken = true;
+        throw new ChessEngineException("Stockfish #" + id + " encerrou esperando " + token);
+    }
+}
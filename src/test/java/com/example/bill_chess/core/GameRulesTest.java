@@ -0,0 +1,91 @@
+package com.example.bill_chess.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.core.ChessMapper;
+import com.bill.bill_chess.core.GameRules;
+import com.bill.bill_chess.dto.MoveDto;
+import com.bill.bill_chess.exception.IllegalMoveException;
+import com.bill.bill_chess.exception.InvalidTurnException;
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.bill.bill_chess.persistence.GameCodec;
+import com.bill.bill_chess.persistence.MoveEvent;
+
+class GameRulesTest {
+
+    // captura, roque e en passant (e4xd3) no caminho
+    private static final List<String> GAME = List.of("e2e4", "d7d5", "e4d5", "g8f6", "f1c4", "c7c6", "d5c6",
+            "b8c6", "g1f3", "e7e5", "e1g1", "e5e4", "d2d4", "e4d3");
+
+    private final GameRules rules = new GameRules(new ChessMapper());
+    private final ChessEntity start = newGame();
+
+    private static ChessEntity newGame() {
+        ChessEntity e = ChessEntity.initial();
+        return new ChessEntity("game-1", e.fenBoard(), e.activeColor(), e.playerBotColor(), e.castlingRights(),
+                e.enPassantSquare(), e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(), e.inCheck(),
+                e.status(), e.moves(), null, null, e.createdAt(), e.updatedAt(), 0L);
+    }
+
+    private ChessEntity applyAll(ChessEntity entity, List<String> moves) {
+        for (String uci : moves)
+            entity = rules.applyMove(entity, new MoveDto(entity.activeColor(), uci)).entity();
+        return entity;
+    }
+
+    private static int[] packed(List<String> moves) {
+        return moves.stream().mapToInt(uci -> MoveEvent.of("game-1", 1, uci).move()).toArray();
+    }
+
+    private static ChessEntity at(ChessEntity e, Instant updatedAt) {
+        return new ChessEntity(e.id(), e.fenBoard(), e.activeColor(), e.playerBotColor(), e.castlingRights(),
+                e.enPassantSquare(), e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(), e.inCheck(),
+                e.status(), e.moves(), null, null, e.createdAt(), updatedAt, e.version());
+    }
+
+    @Test
+    void replayMatchesApplyingEachMove() {
+        Instant lastMove = Instant.parse("2026-01-02T03:04:05Z");
+        ChessEntity applied = applyAll(start, GAME);
+        ChessEntity replayed = rules.replay(start, packed(GAME), lastMove);
+
+        assertEquals(at(applied, lastMove), replayed);
+        assertEquals(lastMove, replayed.updatedAt());
+    }
+
+    @Test
+    void replayStartsFromACompactedSnapshot() {
+        Instant lastMove = Instant.parse("2026-01-02T03:04:05Z");
+        ChessEntity snapshot = applyAll(start, GAME.subList(0, 6));
+        ChessEntity replayed = rules.replay(GameCodec.compact(snapshot), packed(GAME.subList(6, GAME.size())),
+                lastMove);
+
+        assertEquals(at(applyAll(start, GAME), lastMove), replayed);
+    }
+
+    @Test
+    void liveMoveAndReplayAgreeOnCheck() {
+        List<String> check = List.of("e2e4", "f7f6", "d1h5"); // Dh5+
+        Instant lastMove = Instant.parse("2026-01-02T03:04:05Z");
+        ChessEntity applied = applyAll(start, check);
+
+        assertTrue(applied.inCheck());
+        assertEquals(at(applied, lastMove), rules.replay(start, packed(check), lastMove));
+        // saiu do xeque: a flag volta a false no próximo lance
+        assertFalse(applyAll(applied, List.of("g7g6")).inCheck());
+    }
+
+    @Test
+    void applyMoveStillValidatesNewMoves() {
+        assertThrows(InvalidTurnException.class, () -> rules.applyMove(start, new MoveDto("b", "e7e5")));
+        assertThrows(IllegalMoveException.class, () -> rules.applyMove(start, new MoveDto("w", "e2e5")));
+    }
+}
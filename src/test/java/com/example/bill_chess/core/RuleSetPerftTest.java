@@ -0,0 +1,32 @@
+package com.example.bill_chess.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.bill.bill_chess.core.RuleSet;
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+
+class RuleSetPerftTest {
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = ';', value = {
+            "start position;            rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1;          4; 197281",
+            "kiwipete;                  r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1; 3; 97862",
+            "endgame pins;              8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1;                          5; 674624",
+            "promotions;                r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1;  4; 422333",
+            "promotion with capture;    rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8;         3; 62379",
+            "middlegame;                r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10; 3; 89890",
+            "illegal en passant 1;      3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1;                                  6; 1134888",
+            "en passant gives check;    8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1;                                6; 1440467",
+            "short castling gives check; 5k2/8/8/8/8/8/8/4K2R w K - 0 1;                                    6; 661072",
+            "promote to give check;     4k3/1P6/8/8/8/8/K7/8 w - - 0 1;                                     6; 217342",
+            "underpromote to check;     8/P1k5/K7/8/8/8/8/8 w - - 0 1;                                      6; 92683",
+            "self stalemate;            K1k5/8/P7/8/8/8/8/8 w - - 0 1;                                      6; 2217",
+            "stalemate and checkmate;   8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1;                                  4; 23527"
+    })
+    void perftMatchesKnownNodeCounts(String name, String fen, int depth, long expected) {
+        assertEquals(expected, RuleSet.perft(BitboardPosition.fromFen(fen), depth));
+    }
+}
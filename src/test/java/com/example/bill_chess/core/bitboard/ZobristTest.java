@@ -0,0 +1,60 @@
+package com.example.bill_chess.core.bitboard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.core.RuleSet;
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.MoveList;
+import com.bill.bill_chess.domain.model.Move;
+
+class ZobristTest {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    void incrementalKeyMatchesRecomputedKeyThroughoutTheTree() {
+        BitboardPosition position = BitboardPosition.fromFen(KIWIPETE);
+        long root = position.key();
+        walk(position, 3);
+        assertEquals(root, position.key());
+    }
+
+    @Test
+    void transpositionsShareTheKey() {
+        BitboardPosition position = BitboardPosition.fromFen(START);
+        long start = position.key();
+        for (String uci : new String[] { "g1f3", "g8f6", "f3g1", "f6g8" })
+            position.doMove(Move.fromUci(uci));
+        assertEquals(start, position.key());
+    }
+
+    @Test
+    void sideCastlingAndCapturableEnPassantChangeTheKey() {
+        long base = BitboardPosition.fromFen("4k3/8/8/3pP3/8/8/8/R3K2R w KQ - 0 1").key();
+        assertNotEquals(base, BitboardPosition.fromFen("4k3/8/8/3pP3/8/8/8/R3K2R b KQ - 0 1").key());
+        assertNotEquals(base, BitboardPosition.fromFen("4k3/8/8/3pP3/8/8/8/R3K2R w K - 0 1").key());
+        assertNotEquals(base, BitboardPosition.fromFen("4k3/8/8/3pP3/8/8/8/R3K2R w KQ d6 0 1").key());
+        // ninguém pode capturar en passant: mesma posição
+        assertEquals(BitboardPosition.fromFen("4k3/8/8/3p4/8/8/8/4K3 w - - 0 1").key(),
+                BitboardPosition.fromFen("4k3/8/8/3p4/8/8/8/4K3 w - d6 0 1").key());
+    }
+
+    private static void walk(BitboardPosition position, int depth) {
+        assertEquals(position.computeKey(), position.key());
+        if (depth == 0)
+            return;
+        MoveList moves = new MoveList();
+        RuleSet.generateLegal(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            long before = position.key();
+            position.doMove(moves.get(i));
+            walk(position, depth - 1);
+            position.undoMove(moves.get(i));
+            assertEquals(before, position.key());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bill_chess.core.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.core.bitboard.PackedMove;
+import com.bill.bill_chess.core.search.LazySmp;
+import com.bill.bill_chess.core.search.Search;
+import com.bill.bill_chess.core.search.SearchResult;
+import com.bill.bill_chess.core.search.TranspositionTable;
+
+class SearchTest {
+
+    private final Search search = new Search();
+
+    private SearchResult run(String fen, int depth) {
+        return search.search(BitboardPosition.fromFen(fen), depth, Duration.ofSeconds(10));
+    }
+
+    @Test
+    void findsBackRankMate() {
+        SearchResult result = run("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", 3);
+        assertEquals("a1a8", PackedMove.toUci(result.bestMove()));
+        assertTrue(result.score() >= Search.MATE - 10);
+    }
+
+    @Test
+    void capturesHangingQueen() {
+        SearchResult result = run("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1", 4);
+        assertEquals("d1d5", PackedMove.toUci(result.bestMove()));
+    }
+
+    @Test
+    void returnsMoveEvenWithoutTime() {
+        SearchResult result = search.search(
+                BitboardPosition.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"), 5, Duration.ZERO);
+        assertTrue(result.bestMove() != PackedMove.NONE);
+    }
+
+    @Test
+    void lazySmpAgreesOnForcedMove() {
+        LazySmp smp = new LazySmp(new TranspositionTable(4), 3);
+        try {
+            SearchResult result = smp.search(BitboardPosition.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), 4,
+                    Duration.ofSeconds(10), 4);
+            assertEquals("a1a8", PackedMove.toUci(result.bestMove()));
+        } finally {
+            smp.shutdown();
+        }
+    }
+
+    @Test
+    void queuedHelpersDoNotHoldAnotherGamesMove() throws Exception {
+        String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        LazySmp smp = new LazySmp(new TranspositionTable(4), 1);
+        try {
+            // partida lenta ocupa o único helper até o prazo dela
+            CompletableFuture<SearchResult> slow = CompletableFuture.supplyAsync(
+                    () -> smp.search(BitboardPosition.fromFen(start), 64, Duration.ofSeconds(3), 2));
+            Thread.sleep(100);
+
+            long t0 = System.nanoTime();
+            SearchResult fast = smp.search(BitboardPosition.fromFen(start), 64, Duration.ofMillis(100), 2);
+            long elapsedMillis = (System.nanoTime() - t0) / 1_000_000;
+
+            assertTrue(fast.bestMove() != PackedMove.NONE);
+            assertTrue(elapsedMillis < 1_000, "fast search waited " + elapsedMillis + " ms");
+            slow.get();
+        } finally {
+            smp.shutdown();
+        }
+    }
+}
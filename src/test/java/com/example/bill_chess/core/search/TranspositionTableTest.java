@@ -0,0 +1,41 @@
+package com.example.bill_chess.core.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.core.search.Search;
+import com.bill.bill_chess.core.search.TranspositionTable;
+
+class TranspositionTableTest {
+
+    private final TranspositionTable tt = new TranspositionTable(1);
+
+    @Test
+    void storedEntryIsReadBack() {
+        long key = 0x9D39247E33776D41L;
+        tt.store(key, 0x1234, -57, 7, TranspositionTable.LOWER, 3);
+
+        long data = tt.probe(key);
+        assertEquals(0x1234, TranspositionTable.move(data));
+        assertEquals(-57, TranspositionTable.score(data, 3));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+    }
+
+    @Test
+    void otherKeyInSameBucketMisses() {
+        long key = 0x2AF7398005AAA5C7L;
+        tt.store(key, 1, 10, 4, TranspositionTable.EXACT, 0);
+        // mesmos bits baixos (mesmo bucket), chave diferente
+        assertEquals(0L, tt.probe(key ^ (1L << 62)));
+    }
+
+    @Test
+    void mateScoreIsRelativeToProbingPly() {
+        long key = 0x44DB015024623547L;
+        // mate em 5 plies visto a partir do ply 2
+        tt.store(key, 0, Search.MATE - 5, 3, TranspositionTable.EXACT, 2);
+        assertEquals(Search.MATE - 7, TranspositionTable.score(tt.probe(key), 4));
+    }
+}
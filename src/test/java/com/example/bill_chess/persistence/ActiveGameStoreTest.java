@@ -0,0 +1,148 @@
+package com.example.bill_chess.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bill.bill_chess.config.ActiveGameStoreProperties;
+import com.bill.bill_chess.config.GameStorageProperties;
+import com.bill.bill_chess.persistence.ActiveGameStore;
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.bill.bill_chess.persistence.ChessRepository;
+import com.bill.bill_chess.persistence.GameEventStore;
+import com.bill.bill_chess.persistence.PendingMoves;
+
+import reactor.core.publisher.Mono;
+
+class ActiveGameStoreTest {
+
+    private final ChessRepository repository = mock(ChessRepository.class);
+    private final GameEventStore events = mock(GameEventStore.class);
+    private ActiveGameStore store;
+
+    @BeforeEach
+    void open() {
+        ActiveGameStoreProperties props = new ActiveGameStoreProperties();
+        props.setFlushInterval(Duration.ofHours(1)); // flush só quando o teste pedir
+        GameStorageProperties storage = new GameStorageProperties();
+        storage.setSnapshotEvery(2);
+        store = new ActiveGameStore(repository, events, props, storage);
+        when(repository.save(any())).thenAnswer(inv -> withId(inv.getArgument(0)));
+    }
+
+    @AfterEach
+    void close() throws InterruptedException {
+        store.close();
+    }
+
+    private static ChessEntity withId(ChessEntity e) {
+        return new ChessEntity("game-1", e.fenBoard(), e.activeColor(), e.playerBotColor(), e.castlingRights(),
+                e.enPassantSquare(), e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(), e.inCheck(),
+                e.status(), e.moves(), null, null, e.createdAt(), e.updatedAt(), 0L);
+    }
+
+    private static ChessEntity play(ChessEntity e, String uci) {
+        List<String> moves = new ArrayList<>(e.moves());
+        moves.add(uci);
+        return new ChessEntity(e.id(), e.fenBoard(), e.activeColor(), e.playerBotColor(), e.castlingRights(),
+                e.enPassantSquare(), e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(), e.inCheck(),
+                e.status(), moves, null, null, e.createdAt(), Instant.EPOCH, e.version() + 1);
+    }
+
+    @Test
+    void readsOfActiveGamesStayInMemory() {
+        ChessEntity game = store.create(ChessEntity.initial());
+        assertTrue(store.appendMove(game, play(game, "e2e4")).block());
+
+        assertEquals(List.of("e2e4"), store.find("game-1").orElseThrow().moves());
+        assertEquals(List.of("e2e4"), store.findAsync("game-1").block().moves());
+        verify(events, never()).load(any());
+    }
+
+    @Test
+    void movesAreBatchedUntilFlush() {
+        ChessEntity game = store.create(ChessEntity.initial());
+        ChessEntity afterE4 = play(game, "e2e4");
+        ChessEntity afterE5 = play(afterE4, "e7e5");
+        store.appendMove(game, afterE4).block();
+        store.appendMove(afterE4, afterE5).block();
+        verify(events, never()).appendAll(anyList());
+
+        when(events.appendAll(anyList())).thenReturn(Set.of());
+        assertEquals(1, store.flush());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PendingMoves>> batch = ArgumentCaptor.forClass(List.class);
+        verify(events).appendAll(batch.capture());
+        // os dois lances num insert só, a partir do ply salvo no Mongo; ply 2 vira snapshot
+        assertEquals(List.of(new PendingMoves(afterE5, 0, List.of(afterE5))), batch.getValue());
+        assertEquals(0, store.pendingWrites());
+    }
+
+    @Test
+    void moveFromStaleVersionIsRejected() {
+        ChessEntity game = store.create(ChessEntity.initial());
+        assertTrue(store.appendMove(game, play(game, "e2e4")).block());
+        // mesma versão de origem: outro lance já entrou
+        assertFalse(store.appendMove(game, play(game, "d2d4")).block());
+        assertEquals(List.of("e2e4"), store.find("game-1").orElseThrow().moves());
+    }
+
+    @Test
+    void pliesNotYetFlushedAreReadFromMemory() {
+        ChessEntity game = store.create(ChessEntity.initial());
+        ChessEntity afterE4 = play(game, "e2e4");
+        store.appendMove(game, afterE4).block();
+        store.appendMove(afterE4, play(afterE4, "e7e5")).block();
+        when(events.loadAt(any(PendingMoves.class), eq(1))).thenReturn(Mono.just(afterE4));
+
+        assertEquals(afterE4, store.findAt("game-1", 1).block());
+        verify(events, never()).loadAt(anyString(), anyInt());
+    }
+
+    @Test
+    void moveOnAColdGameIsCheckedAgainstTheLog() {
+        ChessEntity game = withId(ChessEntity.initial()); // lida antes de sair da memória
+        when(events.lastPly("game-1")).thenReturn(Mono.just(1)); // outro lance já foi gravado
+
+        assertFalse(store.appendMove(game, play(game, "d2d4")).block());
+        assertEquals(0, store.pendingWrites());
+
+        when(events.lastPly("game-1")).thenReturn(Mono.just(0));
+        assertTrue(store.appendMove(game, play(game, "d2d4")).block());
+        assertEquals(1, store.pendingWrites());
+    }
+
+    @Test
+    void conflictingFlushDropsTheMemoryCopy() {
+        ChessEntity game = store.create(ChessEntity.initial());
+        store.appendMove(game, play(game, "e2e4")).block();
+        when(events.appendAll(anyList())).thenReturn(Set.of("game-1"));
+        when(events.load("game-1")).thenReturn(Mono.just(play(game, "d2d4")));
+
+        assertEquals(0, store.flush());
+        assertEquals(0, store.pendingWrites());
+        // outro nó gravou o ply 1: a próxima leitura vem do log
+        assertEquals(List.of("d2d4"), store.find("game-1").orElseThrow().moves());
+    }
+}
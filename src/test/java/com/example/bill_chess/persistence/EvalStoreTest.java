@@ -0,0 +1,124 @@
+package com.example.bill_chess.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bill.bill_chess.config.EvalStoreProperties;
+import com.bill.bill_chess.persistence.EvalStore;
+
+class EvalStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private EvalStore open() {
+        return open(1024);
+    }
+
+    private EvalStore open(int maxRecords) {
+        EvalStoreProperties props = new EvalStoreProperties();
+        props.setPath(dir.resolve("evals.bin").toString());
+        props.setMaxRecords(maxRecords);
+        return new EvalStore(props);
+    }
+
+    @Test
+    void entriesSurviveReopen() {
+        EvalStore store = open();
+        store.append(0x1234L, 12, "e2e4");
+        store.append(0x5678L, 8, "e7e8q");
+        store.close();
+
+        EvalStore reopened = open();
+        assertEquals(2, reopened.size());
+        assertEquals(new EvalStore.Hit("e2e4", 12), reopened.find(0x1234L));
+        assertEquals(new EvalStore.Hit("e7e8q", 8), reopened.find(0x5678L));
+        assertNull(reopened.find(0x9999L));
+        reopened.close();
+    }
+
+    @Test
+    void deeperResultOverwritesInPlace() {
+        EvalStore store = open();
+        store.append(0x1234L, 10, "e2e4");
+        store.append(0x1234L, 6, "d2d4");
+        store.append(0x1234L, 14, "g1f3");
+
+        assertEquals(1, store.size());
+        assertEquals(new EvalStore.Hit("g1f3", 14), store.find(0x1234L));
+        store.close();
+    }
+
+    @Test
+    void fullStoreKeepsTheDeeperHalf() {
+        EvalStore store = open(4);
+        store.append(1L, 3, "a2a3");
+        store.append(2L, 12, "b2b3");
+        store.append(3L, 5, "c2c3");
+        store.append(4L, 10, "d2d3");
+        // cheio: sai a metade rasa e o novo entra
+        store.append(5L, 8, "e2e3");
+
+        assertEquals(3, store.size());
+        assertNull(store.find(1L));
+        assertNull(store.find(3L));
+        assertEquals(new EvalStore.Hit("b2b3", 12), store.find(2L));
+        assertEquals(new EvalStore.Hit("d2d3", 10), store.find(4L));
+        assertEquals(new EvalStore.Hit("e2e3", 8), store.find(5L));
+        // ainda aceita lances mais fundos de posições conhecidas
+        store.append(2L, 14, "b1c3");
+        assertEquals(new EvalStore.Hit("b1c3", 14), store.find(2L));
+        store.close();
+    }
+
+    @Test
+    void fileFromAnotherVersionIsDiscarded() throws IOException {
+        EvalStore store = open();
+        store.append(0x1234L, 12, "e2e4");
+        store.close();
+
+        try (FileChannel file = FileChannel.open(dir.resolve("evals.bin"), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1), 4);
+        }
+        EvalStore reopened = open();
+        assertEquals(0, reopened.size());
+        assertNull(reopened.find(0x1234L));
+        reopened.close();
+    }
+
+    @Test
+    void readsDuringOverwritesNeverMixRecords() throws Exception {
+        EvalStore store = open(64);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger mixed = new AtomicInteger();
+        Thread reader = Thread.ofPlatform().start(() -> {
+            while (!done.get()) {
+                EvalStore.Hit hit = store.find(0x77L);
+                // lance e profundidade vêm sempre do mesmo registro
+                if (hit != null && !hit.move().equals(hit.depth() % 2 == 0 ? "e2e4" : "d7d5"))
+                    mixed.incrementAndGet();
+            }
+        });
+        for (int depth = 1; depth < 20_000; depth++) {
+            store.append(0x77L, depth, depth % 2 == 0 ? "e2e4" : "d7d5");
+            store.append(depth + 1000L, 1, "a2a3"); // força compactações no meio
+        }
+        done.set(true);
+        reader.join();
+
+        assertEquals(0, mixed.get());
+        store.close();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bill_chess.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.bill.bill_chess.core.bitboard.BitboardPosition;
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.bill.bill_chess.persistence.GameCodec;
+
+class GameCodecTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8",
+            "8/8/8/8/8/8/8/8"
+    })
+    void boardRoundTrips(String fenBoard) {
+        byte[] packed = GameCodec.packBoard(fenBoard);
+
+        assertEquals(32, packed.length);
+        assertEquals(fenBoard, GameCodec.unpackBoard(packed));
+    }
+
+    @Test
+    void movesRoundTripInTwoBytesEach() {
+        List<String> moves = List.of("e2e4", "e7e5", "g1f3", "a7a8q", "h2h1n", "b7b8r", "c2c1b", "h8a1");
+        byte[] packed = GameCodec.packMoves(moves);
+
+        assertEquals(16, packed.length);
+        assertEquals(moves, GameCodec.unpackMoves(packed));
+    }
+
+    @Test
+    void mixedDocumentReadsBinaryPrefixThenTextTail() {
+        // gravado em binário, depois dois lances com o modo binário desligado
+        ChessEntity stored = new ChessEntity("game-1", "rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R",
+                "b", "b", "KQkq", "-", 1, 2, 7L, false, "IN_PROGRESS", List.of("g1f3"),
+                GameCodec.packBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"),
+                GameCodec.packMoves(List.of("e2e4", "c7c5")), Instant.EPOCH, Instant.EPOCH, 3L);
+
+        ChessEntity expanded = GameCodec.expand(stored);
+
+        assertEquals(List.of("e2e4", "c7c5", "g1f3"), expanded.moves());
+        assertEquals(stored.fenBoard(), expanded.fenBoard());
+        assertNull(expanded.packedMoves());
+    }
+
+    @Test
+    void compactThenExpandKeepsTheGame() {
+        ChessEntity game = new ChessEntity("game-1", "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR", "b", "b",
+                "KQkq", "e3", 0, 1, 7L, false, "IN_PROGRESS", List.of("e2e4"), null, null, Instant.EPOCH,
+                Instant.EPOCH, 1L);
+
+        ChessEntity compacted = GameCodec.compact(game);
+        assertNull(compacted.fenBoard());
+        assertNull(compacted.moves());
+        assertEquals(game.toFen(), GameCodec.expand(compacted).toFen());
+        assertEquals(game.moves(), GameCodec.expand(compacted).moves());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w Kq - 3 12",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 0 40"
+    })
+    void positionDecodesStraightFromBinary(String fen) {
+        String[] parts = fen.split(" ");
+        ChessEntity game = new ChessEntity("game-1", parts[0], parts[1], "b", parts[2], parts[3],
+                Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), 7L, false, "IN_PROGRESS", List.of(), null,
+                null, Instant.EPOCH, Instant.EPOCH, 1L);
+        long expected = BitboardPosition.fromFen(fen).key();
+
+        assertEquals(expected, GameCodec.position(game).key());
+        assertEquals(expected, GameCodec.position(GameCodec.compact(game)).key());
+    }
+}
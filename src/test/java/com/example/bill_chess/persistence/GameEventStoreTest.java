@@ -0,0 +1,250 @@
+package com.example.bill_chess.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.bill.bill_chess.config.GameStorageProperties;
+import com.bill.bill_chess.core.ChessMapper;
+import com.bill.bill_chess.core.GameRules;
+import com.bill.bill_chess.dto.MoveDto;
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.bill.bill_chess.persistence.GameCodec;
+import com.bill.bill_chess.persistence.GameEventStore;
+import com.bill.bill_chess.persistence.GameSnapshot;
+import com.bill.bill_chess.persistence.MoveEvent;
+import com.bill.bill_chess.persistence.PendingMoves;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class GameEventStoreTest {
+
+    private static final List<String> GAME = List.of("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6");
+
+    private final MongoTemplate mongo = mock(MongoTemplate.class);
+    private final ReactiveMongoTemplate reactive = mock(ReactiveMongoTemplate.class);
+    private final GameRules rules = spy(new GameRules(new ChessMapper()));
+    private final GameEventStore store = new GameEventStore(mongo, reactive, rules, new GameStorageProperties());
+
+    // "Mongo" em memória: eventos e snapshots ordenados pelo _id
+    private final List<MoveEvent> events = new ArrayList<>();
+    private final List<GameSnapshot> snapshots = new ArrayList<>();
+    private final List<ChessEntity> states = new ArrayList<>(); // states.get(ply)
+
+    @BeforeEach
+    void game() {
+        ChessEntity e = ChessEntity.initial();
+        states.add(new ChessEntity("game-1", e.fenBoard(), e.activeColor(), e.playerBotColor(),
+                e.castlingRights(), e.enPassantSquare(), e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(),
+                e.inCheck(), e.status(), e.moves(), null, null, e.createdAt(), e.updatedAt(), 0L));
+        for (String uci : GAME) {
+            ChessEntity last = states.getLast();
+            states.add(rules.applyMove(last, new MoveDto(last.activeColor(), uci)).entity());
+        }
+        for (int ply = 1; ply <= GAME.size(); ply++)
+            events.add(new MoveEvent(MoveEvent.key("game-1", ply), "game-1", ply,
+                    MoveEvent.of("game-1", ply, GAME.get(ply - 1)).move(), Instant.ofEpochSecond(ply)));
+
+        when(reactive.findOne(any(Query.class), eq(GameSnapshot.class)))
+                .thenAnswer(inv -> Mono.justOrEmpty(inRange(snapshots, GameSnapshot::id, inv.getArgument(0))
+                        .stream().reduce((first, second) -> second)));
+        when(reactive.find(any(Query.class), eq(MoveEvent.class)))
+                .thenAnswer(inv -> Flux.fromIterable(inRange(events, MoveEvent::id, inv.getArgument(0))));
+    }
+
+    private static <T> List<T> inRange(List<T> rows, Function<T, String> id, Query query) {
+        Document range = (Document) query.getQueryObject().get("_id");
+        return rows.stream()
+                .filter(row -> id.apply(row).compareTo(range.getString("$gt")) > 0
+                        && id.apply(row).compareTo(range.getString("$lte")) <= 0)
+                .toList();
+    }
+
+    private void baseDocument(int ply) {
+        when(reactive.findById("game-1", ChessEntity.class)).thenReturn(Mono.just(states.get(ply)));
+    }
+
+    private static ChessEntity at(ChessEntity e, Instant updatedAt) {
+        return new ChessEntity(e.id(), e.fenBoard(), e.activeColor(), e.playerBotColor(), e.castlingRights(),
+                e.enPassantSquare(), e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(), e.inCheck(),
+                e.status(), e.moves(), null, null, e.createdAt(), updatedAt, e.version());
+    }
+
+    /* ===== leitura ===== */
+    @Test
+    void loadAtStartsFromTheLatestSnapshotUpToThePly() {
+        baseDocument(0);
+        snapshots.add(GameSnapshot.of(states.get(2)));
+        snapshots.add(GameSnapshot.of(states.get(4)));
+        snapshots.add(GameSnapshot.of(states.get(6)));
+
+        assertEquals(at(states.get(5), Instant.ofEpochSecond(5)), store.loadAt("game-1", 5).block());
+        // só o lance depois do snapshot do ply 4 foi refeito; o histórico veio dos eventos
+        verify(rules).replay(any(), argThat(moves -> moves.length == 1), any());
+    }
+
+    @Test
+    void snapshotsKeepOnlyThePosition() {
+        GameSnapshot snapshot = GameSnapshot.of(states.get(6));
+        assertNull(snapshot.state().moves());
+        assertNull(snapshot.state().packedMoves());
+        assertEquals(GameCodec.BOARD_BYTES, snapshot.state().packedBoard().length);
+    }
+
+    @Test
+    void legacyTextDocumentIsRewrittenPackedOnFirstRead() {
+        GameStorageProperties binary = new GameStorageProperties();
+        binary.setBinary(true);
+        GameEventStore packing = new GameEventStore(mongo, reactive, rules, binary);
+        baseDocument(2); // documento antigo, em texto
+        events.removeIf(event -> event.ply() <= 2);
+        when(reactive.updateFirst(any(Query.class), any(Update.class), eq(ChessEntity.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+        assertEquals(at(states.get(6), Instant.ofEpochSecond(6)), packing.load("game-1").block());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(reactive).updateFirst(any(Query.class), update.capture(), eq(ChessEntity.class));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        Document unset = (Document) update.getValue().getUpdateObject().get("$unset");
+        assertEquals(List.of("e2e4", "e7e5"), GameCodec.unpackMoves(set.get("packedMoves", byte[].class)));
+        assertEquals(states.get(2).fenBoard(), GameCodec.unpackBoard(set.get("packedBoard", byte[].class)));
+        assertTrue(unset.containsKey("fenBoard") && unset.containsKey("moves"));
+    }
+
+    @Test
+    void packedDocumentIsNotRewritten() {
+        GameStorageProperties binary = new GameStorageProperties();
+        binary.setBinary(true);
+        GameEventStore packing = new GameEventStore(mongo, reactive, rules, binary);
+        when(reactive.findById("game-1", ChessEntity.class))
+                .thenReturn(Mono.just(GameCodec.compact(states.get(0))));
+
+        assertEquals(at(states.get(6), Instant.ofEpochSecond(6)), packing.load("game-1").block());
+        verify(reactive, never()).updateFirst(any(Query.class), any(Update.class), eq(ChessEntity.class));
+    }
+
+    @Test
+    void loadAtWithoutSnapshotReplaysFromTheBaseDocument() {
+        baseDocument(2); // documento antigo, já com dois lances
+        events.removeIf(event -> event.ply() <= 2);
+
+        assertEquals(at(states.get(6), Instant.ofEpochSecond(6)), store.load("game-1").block());
+        // plies anteriores ao documento base não estão no log
+        assertNull(store.loadAt("game-1", 1).block());
+    }
+
+    @Test
+    void pendingPlyIsReplayedFromMemoryOrFromTheSavedPly() {
+        baseDocument(0);
+        events.removeIf(event -> event.ply() > 2); // plies 3-6 ainda no write-behind
+        PendingMoves pending = new PendingMoves(states.get(6), 2, List.of(states.get(4)));
+
+        // depois do snapshot pendente: nada lido do Mongo
+        assertEquals(at(states.get(5), states.get(4).updatedAt()), store.loadAt(pending, 5).block());
+        verify(reactive, never()).find(any(Query.class), eq(MoveEvent.class));
+
+        // antes dele: log até o ply 2 e o resto da memória
+        assertEquals(at(states.get(3), Instant.ofEpochSecond(2)), store.loadAt(pending, 3).block());
+    }
+
+    /* ===== escrita ===== */
+    private PendingMoves pending(String gameId, String uci) {
+        ChessEntity start = states.get(0);
+        ChessEntity previous = new ChessEntity(gameId, start.fenBoard(), start.activeColor(),
+                start.playerBotColor(), start.castlingRights(), start.enPassantSquare(), start.halfMoveClock(),
+                start.fullMoveNumber(), start.zobristKey(), start.inCheck(), start.status(), start.moves(), null,
+                null, start.createdAt(), start.updatedAt(), 0L);
+        ChessEntity next = rules.applyMove(previous, new MoveDto("w", uci)).entity();
+        return PendingMoves.of(previous, next, 1); // snapshot a cada ply
+    }
+
+    private static BulkOperationException duplicates(int... indexes) {
+        List<BulkWriteError> errors = new ArrayList<>();
+        for (int index : indexes)
+            errors.add(new BulkWriteError(11000, "duplicate key", new BsonDocument(), index));
+        return new BulkOperationException("duplicate key", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), errors, null, new ServerAddress(), Set.of()));
+    }
+
+    @Test
+    void flushSeparatesRepeatedMovesFromConflicts() {
+        PendingMoves replayed = pending("game-1", "e2e4");
+        PendingMoves raced = pending("game-2", "e2e4");
+        BulkOperations eventOps = mock(BulkOperations.class);
+        BulkOperations snapshotOps = mock(BulkOperations.class);
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, MoveEvent.class)).thenReturn(eventOps);
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, GameSnapshot.class)).thenReturn(snapshotOps);
+        when(eventOps.insert(anyList())).thenReturn(eventOps);
+        when(eventOps.execute()).thenThrow(duplicates(0, 1));
+        when(snapshotOps.insert(anyList())).thenReturn(snapshotOps);
+        // game-1 já tem o mesmo lance (flush refeito); game-2 tem outro lance no ply 1
+        when(mongo.find(any(Query.class), eq(MoveEvent.class))).thenReturn(List.of(
+                replayed.events().getFirst(), MoveEvent.of("game-2", 1, "d2d4")));
+
+        assertEquals(Set.of("game-2"), store.appendAll(List.of(replayed, raced)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<GameSnapshot>> written = ArgumentCaptor.forClass(List.class);
+        verify(snapshotOps).insert(written.capture());
+        assertEquals(List.of("game-1"), written.getValue().stream().map(GameSnapshot::gameId).toList());
+    }
+
+    @Test
+    void appendTreatsTheSameMoveAsStoredAndAnotherAsConflict() {
+        List<Collection<?>> inserted = new ArrayList<>();
+        when(reactive.insertAll(anyCollection())).thenAnswer(inv -> {
+            Collection<?> rows = inv.getArgument(0);
+            inserted.add(rows);
+            return rows.iterator().next() instanceof MoveEvent ? Flux.error(new DuplicateKeyException("dup"))
+                    : Flux.fromIterable(rows);
+        });
+        events.clear();
+        events.add(MoveEvent.of("game-1", 1, "e2e4"));
+        when(reactive.find(any(Query.class), eq(MoveEvent.class))).thenReturn(Flux.fromIterable(events));
+
+        assertTrue(store.append(pending("game-1", "e2e4")).block());
+        assertEquals(2, inserted.size()); // eventos e o snapshot
+
+        inserted.clear();
+        assertFalse(store.append(pending("game-1", "d2d4")).block());
+        assertEquals(1, inserted.size()); // snapshot do conflito fica de fora
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bill_chess.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.bill.bill_chess.persistence.MoveEvent;
+import com.bill.bill_chess.persistence.PendingMoves;
+
+class PendingMovesTest {
+
+    private static ChessEntity withMoves(String... uci) {
+        ChessEntity e = ChessEntity.initial();
+        return new ChessEntity("game-1", e.fenBoard(), e.activeColor(), e.playerBotColor(), e.castlingRights(),
+                e.enPassantSquare(), e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(), e.inCheck(),
+                e.status(), new ArrayList<>(List.of(uci)), null, null, e.createdAt(), e.updatedAt(),
+                (long) uci.length);
+    }
+
+    @Test
+    void oneEventPerUnsavedPlyAndSnapshotsOnMultiples() {
+        ChessEntity one = withMoves("e2e4");
+        ChessEntity two = withMoves("e2e4", "e7e5");
+        ChessEntity three = withMoves("e2e4", "e7e5", "g1f3");
+        PendingMoves pending = PendingMoves.of(one, two, 2).then(three, 2);
+
+        List<MoveEvent> events = pending.events();
+        assertEquals(List.of("game-1:000002", "game-1:000003"), events.stream().map(MoveEvent::id).toList());
+        assertEquals(List.of("e7e5", "g1f3"), events.stream().map(MoveEvent::uci).toList());
+        assertEquals(List.of(two), pending.snapshots());
+    }
+
+    @Test
+    void afterFlushOnlyLaterPliesRemain() {
+        ChessEntity two = withMoves("e2e4", "e7e5");
+        ChessEntity four = withMoves("e2e4", "e7e5", "g1f3", "b8c6");
+        PendingMoves flushed = PendingMoves.of(withMoves("e2e4"), two, 2);
+        PendingMoves current = flushed.then(withMoves("e2e4", "e7e5", "g1f3"), 2).then(four, 2);
+
+        PendingMoves rest = current.after(flushed);
+        assertEquals(2, rest.fromPly());
+        assertEquals(List.of(four), rest.snapshots());
+        assertEquals(List.of("game-1:000003", "game-1:000004"), rest.events().stream().map(MoveEvent::id).toList());
+    }
+}
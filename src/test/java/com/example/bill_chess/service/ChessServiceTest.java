@@ -0,0 +1,112 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.config.EngineAdmissionProperties;
+import com.bill.bill_chess.config.PonderProperties;
+import com.bill.bill_chess.core.ChessMapper;
+import com.bill.bill_chess.core.GameConstants;
+import com.bill.bill_chess.core.GameRules;
+import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.dto.GameStateDto;
+import com.bill.bill_chess.dto.MoveDto;
+import com.bill.bill_chess.exception.ChessEngineException;
+import com.bill.bill_chess.persistence.ActiveGameStore;
+import com.bill.bill_chess.persistence.ChessEntity;
+import com.bill.bill_chess.service.ChessService;
+import com.bill.bill_chess.service.EngineAdmission;
+import com.bill.bill_chess.service.EngineResultCache;
+import com.bill.bill_chess.service.GameExecutor;
+import com.bill.bill_chess.service.HedgedMoveEngine;
+import com.bill.bill_chess.service.JavaSearchEngine;
+import com.bill.bill_chess.service.LegalMovesCache;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ChessServiceTest {
+
+    private final ActiveGameStore games = mock(ActiveGameStore.class);
+    private final HedgedMoveEngine stockfish = mock(HedgedMoveEngine.class);
+    private final JavaSearchEngine javaEngine = mock(JavaSearchEngine.class);
+    private final EngineResultCache resultCache = mock(EngineResultCache.class);
+    private final GameExecutor gameExecutor = mock(GameExecutor.class);
+    private final EngineAdmission admission = new EngineAdmission(new EngineAdmissionProperties());
+    private final ChessService service;
+
+    ChessServiceTest() {
+        when(resultCache.wrap(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(javaEngine.maxDepth()).thenReturn(4);
+        service = new ChessService(games, gameExecutor, mock(ChessMapper.class), mock(GameRules.class),
+                mock(MoveEngine.class), stockfish, mock(LegalMovesCache.class), javaEngine, resultCache,
+                new PonderProperties(), admission);
+    }
+
+    private static ChessEntity botToMove() {
+        ChessEntity e = ChessEntity.initial();
+        return new ChessEntity("game-1", e.fenBoard(), "w", "w", e.castlingRights(), e.enPassantSquare(),
+                e.halfMoveClock(), e.fullMoveNumber(), e.zobristKey(), e.inCheck(), e.status(), e.moves(), null,
+                null, e.createdAt(), e.updatedAt(), 0L);
+    }
+
+    @Test
+    void slowEngineTimesOutAsEngineErrorWithoutHoldingAThread() throws Exception {
+        when(games.findAsync("game-1")).thenReturn(Mono.just(botToMove()));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(stockfish.bestMove(anyString(), anyInt())).thenReturn(Mono.delay(Duration.ofSeconds(30))
+                .map(tick -> "e2e4")
+                .doOnCancel(() -> cancelled.set(true)));
+
+        long t0 = System.nanoTime();
+        CompletableFuture<GameStateDto> result = service.makeBotMove("game-1", 10).toFuture();
+        assertTrue(System.nanoTime() - t0 < TimeUnit.SECONDS.toNanos(1), "subscribing must not wait for the engine");
+
+        // busca pendente: nenhuma thread parada dentro do serviço esperando o motor
+        Thread.sleep(300);
+        assertTrue(Thread.getAllStackTraces().values().stream()
+                .flatMap(Arrays::stream)
+                .noneMatch(frame -> frame.getClassName().startsWith(ChessService.class.getName())));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> result.get(GameConstants.BOT_TIMEOUT_SECONDS + 5L, TimeUnit.SECONDS));
+        assertInstanceOf(ChessEngineException.class, error.getCause());
+        assertEquals("Time limit exceeded for calculation", error.getCause().getMessage());
+        // ninguém mais espera o lance: a busca é cancelada em vez de rodar até o fim
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    void coldGameIsLoadedBeforeEnteringTheShard() {
+        Sinks.One<ChessEntity> coldLoad = Sinks.one();
+        when(games.findAsync("game-1")).thenReturn(coldLoad.asMono());
+        when(gameExecutor.run(eq("game-1"), any())).thenReturn(Mono.empty());
+
+        // nada bloqueia: a leitura do Mongo ainda está pendente e o shard não foi ocupado
+        Mono<GameStateDto> move = service.makeMove("game-1", new MoveDto("w", "e2e4"));
+        move.subscribe();
+        verify(gameExecutor, never()).run(anyString(), any());
+
+        coldLoad.tryEmitValue(botToMove());
+        verify(gameExecutor).run(eq("game-1"), any());
+    }
+}
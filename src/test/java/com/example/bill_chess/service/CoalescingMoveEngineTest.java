@@ -0,0 +1,66 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.service.CoalescingMoveEngine;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class CoalescingMoveEngineTest {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CoalescingMoveEngine engine = new CoalescingMoveEngine((fen, depth) -> {
+        calls.incrementAndGet();
+        return Mono.delay(Duration.ofMillis(100)).thenReturn("e2e4");
+    });
+
+    @Test
+    void concurrentIdenticalRequestsShareOneSearch() {
+        List<String> moves = Flux.range(0, 5)
+                // relógios diferentes, mesma posição
+                .flatMap(i -> engine.bestMove(START.replace("0 1", i + " " + (i + 1)), 10))
+                .collectList()
+                .block();
+
+        assertEquals(List.of("e2e4", "e2e4", "e2e4", "e2e4", "e2e4"), moves);
+        assertEquals(1, calls.get());
+        assertEquals(4, engine.stats().coalesced());
+        assertEquals(0, engine.stats().inFlight());
+    }
+
+    @Test
+    void searchIsCancelledOnlyWhenEveryCallerLeaves() {
+        AtomicInteger cancelled = new AtomicInteger();
+        CoalescingMoveEngine slow = new CoalescingMoveEngine(
+                (fen, depth) -> Mono.<String>never().doOnCancel(cancelled::incrementAndGet));
+        Disposable first = slow.bestMove(START, 10).subscribe();
+        Disposable second = slow.bestMove(START, 10).subscribe();
+
+        first.dispose();
+        assertEquals(0, cancelled.get());
+        assertEquals(1, slow.stats().inFlight());
+
+        second.dispose();
+        assertEquals(1, cancelled.get());
+        assertEquals(0, slow.stats().inFlight());
+    }
+
+    @Test
+    void differentDepthOrLaterRequestStartsNewSearch() {
+        Flux.merge(engine.bestMove(START, 10), engine.bestMove(START, 12)).blockLast();
+        engine.bestMove(START, 10).block();
+
+        assertEquals(3, calls.get());
+        assertEquals(0, engine.stats().coalesced());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.config.EngineAdmissionProperties;
+import com.bill.bill_chess.exception.ChessEngineException;
+import com.bill.bill_chess.exception.EngineOverloadedException;
+import com.bill.bill_chess.service.EngineAdmission;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class EngineAdmissionTest {
+
+    private static final long FAR = Long.MAX_VALUE / 2;
+
+    private final EngineAdmission admission;
+    private final Sinks.One<String> blocker = Sinks.one();
+    private final List<String> started = new ArrayList<>();
+
+    EngineAdmissionTest() {
+        EngineAdmissionProperties props = new EngineAdmissionProperties();
+        props.setMaxConcurrent(1);
+        props.setQueueDepth(2);
+        admission = new EngineAdmission(props);
+    }
+
+    private Mono<String> job(String name, int priority, long deadline) {
+        return admission.submit(priority, deadline, () -> {
+            started.add(name);
+            return name.equals("first") ? blocker.asMono() : Mono.just(name);
+        });
+    }
+
+    @Test
+    void fullQueueFailsFastWithRetryAfter() {
+        job("first", 1, FAR).subscribe();
+        job("a", 1, FAR).subscribe();
+        job("b", 1, FAR).subscribe();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        job("c", 1, FAR).subscribe(v -> {
+        }, error::set);
+        EngineOverloadedException overloaded = assertInstanceOf(EngineOverloadedException.class, error.get());
+        assertTrue(overloaded.getRetryAfterSeconds() >= 1);
+        assertEquals(2, admission.queued());
+    }
+
+    @Test
+    void lowerPriorityValueRunsFirst() {
+        job("first", 1, FAR).subscribe();
+        job("deep", 20, FAR).subscribe();
+        job("shallow", 5, FAR).subscribe();
+
+        blocker.tryEmitValue("done");
+        assertEquals(List.of("first", "shallow", "deep"), started);
+        assertEquals(0, admission.running());
+    }
+
+    @Test
+    void queuedRequestPastItsDeadlineIsRejectedWithoutRunning() {
+        job("first", 1, FAR).subscribe();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        job("late", 1, System.nanoTime()).subscribe(v -> {
+        }, error::set);
+
+        blocker.tryEmitValue("done");
+        assertInstanceOf(ChessEngineException.class, error.get());
+        assertEquals(List.of("first"), started);
+    }
+
+    @Test
+    void queuedAsyncJobRunsToCompletion() {
+        // Mono.just termina na hora e escondia o cancelamento da busca ao sair da fila
+        Sinks.One<String> firstResult = Sinks.one();
+        Sinks.One<String> secondResult = Sinks.one();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<Integer> runningOnResult = new AtomicReference<>();
+        admission.submit(1, FAR, firstResult::asMono).subscribe();
+        admission.submit(1, FAR, () -> secondResult.asMono().doOnCancel(() -> cancelled.set(true)))
+                .subscribe(v -> runningOnResult.set(admission.running()));
+        assertEquals(1, admission.queued());
+
+        firstResult.tryEmitValue("first");
+        assertEquals(0, admission.queued());
+        assertEquals(1, admission.running());
+        assertFalse(cancelled.get());
+
+        // a vaga já foi devolvida quando o resultado chega a quem pediu
+        secondResult.tryEmitValue("second");
+        assertEquals(0, runningOnResult.get());
+        assertFalse(cancelled.get());
+    }
+
+    @Test
+    void cancellingWhileQueuedFreesTheSlot() {
+        job("first", 1, FAR).subscribe();
+        job("waiting", 1, FAR).subscribe().dispose();
+        assertEquals(0, admission.queued());
+
+        blocker.tryEmitValue("done");
+        assertEquals(List.of("first"), started);
+    }
+
+    @Test
+    void cancellingARunningJobCancelsItsWork() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        admission.submit(1, FAR, () -> Mono.never().doOnCancel(() -> cancelled.set(true))).subscribe().dispose();
+
+        assertTrue(cancelled.get());
+        assertEquals(0, admission.running());
+    }
+}
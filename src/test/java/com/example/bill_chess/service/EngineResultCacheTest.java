@@ -0,0 +1,58 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.config.EvalStoreProperties;
+import com.bill.bill_chess.config.StockfishProperties;
+import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.persistence.EvalStore;
+import com.bill.bill_chess.service.EngineResultCache;
+
+import reactor.core.publisher.Mono;
+
+class EngineResultCacheTest {
+
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final EngineResultCache cache = new EngineResultCache(new StockfishProperties(), disabledStore());
+    // o "lance" devolvido registra a profundidade buscada
+    private final MoveEngine engine = cache.wrap((fen, depth) -> {
+        calls.incrementAndGet();
+        return Mono.just("d" + depth);
+    });
+
+    private static EvalStore disabledStore() {
+        EvalStoreProperties props = new EvalStoreProperties();
+        props.setEnabled(false);
+        return new EvalStore(props);
+    }
+
+    @Test
+    void deeperEntryAnswersShallowerRequest() {
+        assertEquals("d12", engine.bestMove(AFTER_E4, 12).block());
+        assertEquals("d12", engine.bestMove(AFTER_E4, 8).block());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shallowerEntryMissesAndIsReplaced() {
+        engine.bestMove(AFTER_E4, 6).block();
+        assertEquals("d10", engine.bestMove(AFTER_E4, 10).block());
+        assertEquals("d10", engine.bestMove(AFTER_E4, 6).block());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void transpositionAtOtherMoveNumberHits() {
+        engine.bestMove(AFTER_E4, 10).block();
+        // en passant sem peão para capturar não muda a posição
+        engine.bestMove("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 4 9", 10).block();
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.stats().hits());
+    }
+}
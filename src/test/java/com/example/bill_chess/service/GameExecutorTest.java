@@ -0,0 +1,98 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.config.GameExecutorProperties;
+import com.bill.bill_chess.exception.ConcurrentMoveException;
+import com.bill.bill_chess.service.GameExecutor;
+
+import reactor.core.publisher.Mono;
+
+class GameExecutorTest {
+
+    private final GameExecutor executor = executor(4);
+
+    private static GameExecutor executor(int shards) {
+        GameExecutorProperties props = new GameExecutorProperties();
+        props.setShards(shards);
+        return new GameExecutor(props);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void tasksOfOneGameRunInSubmissionOrder() {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int ply = i;
+            futures.add(executor.run("game-1", () -> {
+                seen.add(ply);
+                return Mono.just(ply);
+            }).toFuture());
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            expected.add(i);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void aBlockedGameDoesNotHoldOthersOnOtherShards() throws InterruptedException {
+        // procura duas partidas em filas diferentes
+        String other = "game-2";
+        for (int i = 3; shardOf("game-1") == shardOf(other); i++)
+            other = "game-" + i;
+        CountDownLatch release = new CountDownLatch(1);
+        executor.run("game-1", () -> {
+            try {
+                return Mono.just(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }).subscribe();
+
+        assertEquals("ok", executor.run(other, () -> Mono.just("ok")).block(Duration.ofSeconds(2)));
+        release.countDown();
+    }
+
+    @Test
+    void pendingIoDoesNotHoldTheShard() {
+        // o Mongo respondendo devagar não segura os próximos lances da mesma fila
+        CompletableFuture<String> slow = executor.run("game-1", () -> Mono.delay(Duration.ofSeconds(2))
+                .map(tick -> "saved")).toFuture();
+
+        assertEquals("next", executor.run("game-1", () -> Mono.just("next")).block(Duration.ofMillis(500)));
+        assertEquals("saved", slow.join());
+    }
+
+    @Test
+    void blockRethrowsTheTaskException() {
+        assertThrows(ConcurrentMoveException.class, () -> executor.run("game-1", () -> {
+            throw new ConcurrentMoveException("conflict");
+        }).block());
+        assertTrue(executor.run("game-1", () -> Mono.just(true)).block());
+    }
+
+    private static int shardOf(String gameId) {
+        return Math.floorMod(gameId.hashCode(), 4);
+    }
+}
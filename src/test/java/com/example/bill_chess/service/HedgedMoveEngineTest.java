@@ -0,0 +1,128 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.bill.bill_chess.config.StockfishProperties;
+import com.bill.bill_chess.core.MoveEngine;
+import com.bill.bill_chess.service.HedgedMoveEngine;
+import com.bill.bill_chess.service.StockfishService;
+import com.sun.net.httpserver.HttpServer;
+
+import reactor.core.publisher.Mono;
+
+class HedgedMoveEngineTest {
+
+    private static final String FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private HttpServer server;
+    private final AtomicInteger remoteHits = new AtomicInteger();
+    private volatile long remoteLatencyMillis;
+    private volatile int remoteStatus = 200;
+    private volatile String remoteBody = "{\"success\":true,\"data\":\"bestmove e2e4 ponder e7e5\"}";
+
+    private final MoveEngine local = (fen, depth) -> Mono.just("d2d4").delayElement(Duration.ofMillis(20));
+    private final StockfishProperties props = new StockfishProperties();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        // stub do stockfish.online com latência e status injetáveis
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/stockfish.php", exchange -> {
+            remoteHits.incrementAndGet();
+            try {
+                Thread.sleep(remoteLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = remoteBody.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(remoteStatus, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        props.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        props.setPath("/api/stockfish.php");
+        props.setTimeout(Duration.ofSeconds(2));
+        props.getCache().setMaxSize(0); // sem cache: cada chamada chega ao stub
+        props.getHedge().setEnabled(true);
+        props.getHedge().setInitialDelay(Duration.ofMillis(300));
+        props.getHedge().setFailureThreshold(2);
+        props.getHedge().setOpenDuration(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private HedgedMoveEngine engine() {
+        StockfishService remote = new StockfishService(WebClient.builder(), props);
+        return new HedgedMoveEngine(remote, local, props.getHedge());
+    }
+
+    @Test
+    void fastRemoteWins() {
+        remoteLatencyMillis = 10;
+        // folga para o primeiro request do WebClient (conexão fria)
+        props.getHedge().setInitialDelay(Duration.ofMillis(1_500));
+        assertEquals("e2e4", engine().bestMove(FEN, 10).block());
+    }
+
+    @Test
+    void slowRemoteIsHedgedByLocalPool() {
+        remoteLatencyMillis = 1_500;
+        long start = System.nanoTime();
+        assertEquals("d2d4", engine().bestMove(FEN, 10).block());
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(1_000).toNanos());
+    }
+
+    @Test
+    void sustainedFailuresOpenTheBreaker() throws InterruptedException {
+        remoteStatus = 500;
+        HedgedMoveEngine engine = engine();
+        assertEquals("d2d4", engine.bestMove(FEN, 10).block());
+        assertEquals("d2d4", engine.bestMove(FEN, 10).block());
+        // o remoto segue até o fim em segundo plano (com os retries) antes de contar a falha
+        for (int i = 0; i < 50 && !engine.breakerState().equals("OPEN"); i++)
+            Thread.sleep(100);
+        assertEquals("OPEN", engine.breakerState());
+
+        int hits = remoteHits.get();
+        assertEquals("d2d4", engine.bestMove(FEN, 10).block());
+        assertEquals(hits, remoteHits.get());
+    }
+
+    @Test
+    void emptyRemoteAnswerCountsAsFailure() throws InterruptedException {
+        remoteBody = "";
+        props.getHedge().setOpenDuration(Duration.ofMillis(200));
+        HedgedMoveEngine engine = engine();
+        assertEquals("d2d4", engine.bestMove(FEN, 10).block());
+        assertEquals("d2d4", engine.bestMove(FEN, 10).block());
+        assertEquals("OPEN", engine.breakerState());
+
+        // a chamada de teste também volta vazia: o disjuntor reabre em vez de ficar meio aberto
+        Thread.sleep(250);
+        int hits = remoteHits.get();
+        assertEquals("d2d4", engine.bestMove(FEN, 10).block());
+        assertEquals(hits + 1, remoteHits.get());
+        assertEquals("OPEN", engine.breakerState());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.config.JavaEngineProperties;
+import com.bill.bill_chess.core.search.Search;
+import com.bill.bill_chess.service.JavaSearchEngine;
+
+import reactor.core.Disposable;
+
+class JavaSearchEngineTest {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final JavaSearchEngine engine;
+
+    JavaSearchEngineTest() {
+        JavaEngineProperties props = new JavaEngineProperties();
+        props.setMoveTime(Duration.ofSeconds(30));
+        props.getHash().setSizeMb(4);
+        props.getSmp().setMaxThreads(2);
+        engine = new JavaSearchEngine(props);
+    }
+
+    @AfterEach
+    void close() {
+        engine.destroy();
+    }
+
+    private static boolean searching() {
+        return Thread.getAllStackTraces().values().stream()
+                .flatMap(Arrays::stream)
+                .anyMatch(frame -> frame.getClassName().equals(Search.class.getName()));
+    }
+
+    @Test
+    void cancellingTheSubscriptionStopsTheSearchThreads() throws InterruptedException {
+        Disposable pending = engine.bestMove(START, 64, 2).subscribe();
+        Thread.sleep(300);
+        assertTrue(searching());
+
+        // ponder descartado: a busca para bem antes do move-time de 30s
+        pending.dispose();
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (searching() && System.nanoTime() < deadline)
+            Thread.sleep(20);
+        assertTrue(!searching(), "search still running after cancel");
+    }
+}
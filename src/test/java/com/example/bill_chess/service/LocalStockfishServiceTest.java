@@ -0,0 +1,95 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bill.bill_chess.config.LocalStockfishProps;
+import com.bill.bill_chess.dto.AnalysisInfo;
+import com.bill.bill_chess.service.LocalStockfishService;
+
+import reactor.core.publisher.Flux;
+
+class LocalStockfishServiceTest {
+
+    // motor UCI falso: "go depth 13" derruba o processo
+    private static final String FAKE_ENGINE = """
+            #!/bin/sh
+            while read line; do
+              case "$line" in
+                uci) echo "id name fake"; echo uciok ;;
+                isready) echo readyok ;;
+                "go depth 13") exit 1 ;;
+                go*) echo "info depth 1 seldepth 1 score cp 31 nodes 20 pv e2e4"
+                     echo "info depth 2 currmove e2e4 currmovenumber 1"
+                     echo "info depth 2 seldepth 3 score mate -3 nodes 57 nps 1000 pv e2e4 e7e5"
+                     sleep 0.05; echo "bestmove e2e4" ;;
+                quit) exit 0 ;;
+              esac
+            done
+            """;
+
+    @TempDir
+    Path dir;
+
+    private LocalStockfishService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        assumeTrue(Files.isExecutable(Path.of("/bin/sh")));
+        Path exe = dir.resolve("fake-stockfish");
+        Files.writeString(exe, FAKE_ENGINE);
+        assumeTrue(exe.toFile().setExecutable(true));
+
+        LocalStockfishProps props = new LocalStockfishProps();
+        props.setExe(exe.toString());
+        props.setPoolSize(2);
+        props.setTimeout(Duration.ofSeconds(5));
+        service = new LocalStockfishService(props);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null)
+            service.destroy();
+    }
+
+    @Test
+    void concurrentRequestsEachGetTheirOwnAnswer() {
+        List<String> moves = Flux.fromStream(IntStream.range(0, 8).boxed())
+                .flatMap(i -> service.bestMove("8/8/8/8/8/8/8/8 w - - 0 1", 5))
+                .collectList()
+                .block();
+        assertEquals(8, moves.size());
+        moves.forEach(move -> assertEquals("e2e4", move));
+    }
+
+    @Test
+    void analysisStreamsScoredInfoLines() {
+        List<AnalysisInfo> infos = service.analyze("8/8/8/8/8/8/8/8 w - - 0 1", 2).collectList().block();
+        assertEquals(List.of(
+                new AnalysisInfo(1, 31, null, 20, List.of("e2e4")),
+                new AnalysisInfo(2, null, -3, 57, List.of("e2e4", "e7e5"))), infos);
+        // o worker voltou ao pool
+        assertEquals("e2e4", service.bestMove("8/8/8/8/8/8/8/8 w - - 0 1", 5).block());
+    }
+
+    @Test
+    void crashedWorkerIsRespawned() {
+        assertThrows(RuntimeException.class, () -> service.bestMove("8/8/8/8/8/8/8/8 w - - 0 1", 13).block());
+        for (int i = 0; i < 4; i++)
+            assertEquals("e2e4", service.bestMove("8/8/8/8/8/8/8/8 w - - 0 1", 5).block());
+    }
+}
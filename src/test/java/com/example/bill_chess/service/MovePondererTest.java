@@ -0,0 +1,48 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.config.PonderProperties;
+import com.bill.bill_chess.service.MovePonderer;
+
+import reactor.core.publisher.Mono;
+
+class MovePondererTest {
+
+    private static final String FEN = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final MovePonderer ponderer = new MovePonderer(
+            (fen, depth) -> Mono.<String>never().doOnCancel(() -> cancelled.set(true)),
+            new PonderProperties());
+
+    @Test
+    void matchingRequestGetsThePonderedSearch() {
+        MovePonderer fast = new MovePonderer((fen, depth) -> Mono.just("e7e5"), new PonderProperties());
+        fast.start("g1", FEN);
+        // relógios diferentes, mesma posição; profundidade padrão cobre o pedido
+        Optional<CompletableFuture<String>> pondered = fast.take("g1", FEN.replace("0 1", "3 7"), 8);
+        assertEquals("e7e5", pondered.orElseThrow().join());
+    }
+
+    @Test
+    void deeperRequestCancelsThePonder() {
+        ponderer.start("g1", FEN);
+        assertTrue(ponderer.take("g1", FEN, 20).isEmpty());
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    void nextPonderUsesLastRequestedDepth() {
+        ponderer.take("g1", FEN, 14);
+        ponderer.start("g1", FEN);
+        assertTrue(ponderer.take("g1", FEN, 14).isPresent());
+    }
+}
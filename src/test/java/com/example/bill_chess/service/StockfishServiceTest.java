@@ -0,0 +1,32 @@
+package com.example.bill_chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.bill.bill_chess.exception.ChessEngineException;
+import com.bill.bill_chess.service.StockfishService;
+
+class StockfishServiceTest {
+
+    @Test
+    void parsesMoveFromStockfishOnlinePayload() {
+        // formato real da API v2: a chave também se chama bestmove
+        String body = "{\"success\":true,\"evaluation\":0.31,\"mate\":null,"
+                + "\"bestmove\":\"bestmove e2e4 ponder e7e5\",\"continuation\":\"e2e4 e7e5 g1f3 b8c6\"}";
+        assertEquals("e2e4", StockfishService.parseBestMove(body));
+    }
+
+    @Test
+    void keepsPromotionPiece() {
+        assertEquals("e7e8q", StockfishService.parseBestMove(
+                "{\"success\":true,\"bestmove\":\"bestmove e7e8q\",\"continuation\":\"e7e8q\"}"));
+    }
+
+    @Test
+    void payloadWithoutMoveIsAnEngineError() {
+        assertThrows(ChessEngineException.class,
+                () -> StockfishService.parseBestMove("{\"success\":false,\"data\":\"Invalid FEN\"}"));
+    }
+}